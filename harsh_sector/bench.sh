@@ -0,0 +1,82 @@
+#!/bin/bash
+# JMH benchmarks for Harsh Sector's per-frame and per-interaction hot paths
+# Run from the harsh_sector directory after ./build.sh:
+#   ./bench.sh                       # every benchmark, all fleet sizes
+#   ./bench.sh RetreatBenchmark -p ships=1000
+#
+# Arguments are passed to JMH (run with -h for its options). The GC profiler is always on,
+# so each benchmark reports ns/op and bytes allocated per op (gc.alloc.rate.norm).
+# Benchmarks run against the harness fakes (harness/src) - no game instance is started.
+# Calls into fakes go through dynamic proxies and count toward ns/op and B/op; harness.sh
+# prints what one such call costs.
+#
+# Uses the same STARSECTOR_DIR and JAVA_HOME overrides as build.sh, plus:
+#   JMH_DIR  - folder with the JMH jars below; downloaded from Maven Central if not set
+
+set -e  # Exit on error
+
+JMH_VERSION="1.37"
+JMH_JARS=(
+    "org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar"
+    "org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar"
+    "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar"
+    "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+)
+
+# Paths
+case "$(uname -s)" in
+    Darwin)
+        JAVA_HOME="${JAVA_HOME:-/opt/homebrew/opt/openjdk@17}"
+        STARSECTOR_DIR="${STARSECTOR_DIR:-/Applications/Starsector.app}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR/Contents/Resources/Java"
+        ;;
+    *)
+        STARSECTOR_DIR="${STARSECTOR_DIR:-$HOME/starsector}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR"
+        ;;
+esac
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+    JAVAC="$JAVA_HOME/bin/javac"
+else
+    JAVA="java"
+    JAVAC="javac"
+fi
+
+MOD_JAR="jars/HarshSector.jar"
+if [ ! -f "$MOD_JAR" ]; then
+    echo "ERROR: $MOD_JAR not found - run ./build.sh first"
+    exit 1
+fi
+
+GAME_CLASSPATH="$STARSECTOR_JAVA/starfarer.api.jar:$STARSECTOR_JAVA/log4j-1.2.9.jar:$STARSECTOR_JAVA/lwjgl_util.jar"
+BENCH_DIR="build/bench"
+
+# JMH itself - not shipped with the mod
+if [ -z "$JMH_DIR" ]; then
+    JMH_DIR="build/jmh"
+    mkdir -p "$JMH_DIR"
+    for path in "${JMH_JARS[@]}"; do
+        if [ ! -f "$JMH_DIR/$(basename "$path")" ]; then
+            echo "Downloading $(basename "$path")"
+            curl -sfL -o "$JMH_DIR/$(basename "$path")" "https://repo1.maven.org/maven2/$path"
+        fi
+    done
+fi
+JMH_CLASSPATH=""
+for path in "${JMH_JARS[@]}"; do
+    JMH_CLASSPATH="$JMH_CLASSPATH:$JMH_DIR/$(basename "$path")"
+done
+
+# Compile the benchmarks with the harness fakes - JMH generates its runners while compiling
+rm -rf "$BENCH_DIR"
+mkdir -p "$BENCH_DIR"
+find bench/src harness/src -name "*.java" | xargs "$JAVAC" \
+    -cp "$MOD_JAR:$GAME_CLASSPATH$JMH_CLASSPATH" \
+    -d "$BENCH_DIR" \
+    --release 17
+
+# The compiled benchmarks go first: they share packages with the mod, and the harness
+# brings its own LunaLib stand-in
+exec "$JAVA" -cp "$BENCH_DIR:$MOD_JAR:$GAME_CLASSPATH$JMH_CLASSPATH" org.openjdk.jmh.Main -prof gc "$@"
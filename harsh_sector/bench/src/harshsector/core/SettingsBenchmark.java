@@ -0,0 +1,62 @@
+package harshsector.core;
+
+import harshsector.harness.FakeGame;
+import harshsector.harness.Harness;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a setting, with and without LunaLib.
+ *
+ * Every JMH fork is a new JVM, so Settings decides whether LunaLib is there once per
+ * parameter value, as it does once per game session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettingsBenchmark {
+
+    private static final Settings.BooleanKey BOOLEAN = Settings.booleanKey("harshsector_retreat_enabled", true);
+    private static final Settings.FloatKey FLOAT = Settings.floatKey("harshsector_retreat_delay", 30.0f);
+    private static final Settings.IntKey INT = Settings.intKey("harshsector_retreat_curve", 0);
+
+    @Param({ "true", "false" })
+    public boolean lunaLib;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Harness.configureLogging();
+        FakeGame.install(lunaLib);
+        Settings.rebuild();
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return BOOLEAN.get();
+    }
+
+    @Benchmark
+    public float getFloat() {
+        return FLOAT.get();
+    }
+
+    @Benchmark
+    public int getInt() {
+        return INT.get();
+    }
+}
@@ -0,0 +1,169 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.fleet.FleetGoal;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import harshsector.core.FrameBudget;
+import harshsector.core.Settings;
+import harshsector.harness.FakeCombat;
+import harshsector.harness.FakeFleet;
+import harshsector.harness.FakeGame;
+import harshsector.harness.FakeMember;
+import harshsector.harness.Harness;
+import lunalib.lunaSettings.LunaSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of a retreat battle, and of the delay lookups behind it, by enemy fleet size.
+ *
+ * The battle benchmarks hold N delayed enemy ships that never become due: the delay settings
+ * are raised through the LunaLib stand-in so a measurement of millions of frames stays in the
+ * part of the fight where the plugin is waiting on its schedule - the status countdown still
+ * ticks, and its text is rebuilt once a second as in play. {@link #battle} replays a whole
+ * battle with the default settings instead, releases and detach included.
+ *
+ * Run with bench.sh, which adds the GC profiler for bytes allocated per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetreatBenchmark {
+
+    private static final float FRAME = 1f / 60f;
+
+    // Enemy reserves deployed by the fake AI in the battle replay: one every 12 frames
+    private static final int DEPLOY_EVERY = 12;
+
+    @Param({ "10", "100", "1000" })
+    public int ships;
+
+    private FakeGame game;
+    private FakeFleet enemy;
+    private FakeCombat combat;
+    private TacticalRetreatPlugin plugin;
+    private List<FleetMemberAPI> members;
+    private int[] burns;
+    private int[] hullSizes;
+    private int playerMinBurn;
+    private DelayCurve curve;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Harness.configureLogging();
+        game = FakeGame.install(true);
+        Random random = new Random(1L);
+
+        // Player burns 9-11 and the enemy 6-8, so every enemy ship is delayed
+        FakeFleet player = game.getPlayerFleet();
+        for (int i = 0; i < 10; i++) {
+            player.add(new FakeMember("player_" + i, random.nextInt(4), 9 + random.nextInt(3)));
+        }
+        enemy = new FakeFleet("enemy");
+        for (int i = 0; i < ships; i++) {
+            enemy.add(new FakeMember("enemy_" + i, random.nextInt(4), 6 + random.nextInt(3)));
+        }
+
+        members = enemy.getMembers();
+        burns = new int[ships];
+        hullSizes = new int[ships];
+        for (int i = 0; i < ships; i++) {
+            burns[i] = BurnSpeedCalculator.getShipBurn(members.get(i));
+            hullSizes[i] = DelayCurve.hullSize(members.get(i));
+        }
+        playerMinBurn = BurnSpeedCalculator.getPlayerFleetMinBurn();
+        curve = DelayCurve.get();
+    }
+
+    /**
+     * A battle whose delayed ships never become due.
+     */
+    @Setup(Level.Iteration)
+    public void setUpBattle() {
+        LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_delay", 1e6f);
+        LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_max_delay", 1e7f);
+        Settings.rebuild();
+
+        combat = new FakeCombat(game.getPlayerFleet(), FleetGoal.ESCAPE, enemy);
+        plugin = new TacticalRetreatPlugin();
+        combat.addPlugin(plugin);
+
+        LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_delay", null);
+        LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_max_delay", null);
+        Settings.rebuild();
+    }
+
+    /**
+     * One frame of a battle with N delayed ships waiting.
+     */
+    @Benchmark
+    public void advance() {
+        combat.advance(FRAME);
+    }
+
+    /**
+     * The status countdown alone, on a frame that doesn't change its text.
+     */
+    @Benchmark
+    public void updateReinforcementStatus() {
+        plugin.updateReinforcementStatus(FRAME, FrameBudget.COMBAT);
+    }
+
+    /**
+     * A whole retreat battle with the default settings: init, then frames until every delayed
+     * ship is released and the plugin detaches.
+     */
+    @Benchmark
+    public int battle() {
+        FakeCombat replay = new FakeCombat(game.getPlayerFleet(), FleetGoal.ESCAPE, enemy);
+        TacticalRetreatPlugin replayed = new TacticalRetreatPlugin();
+        replay.addPlugin(replayed);
+
+        int frames = 0;
+        while (replay.hasPlugin(replayed)) {
+            frames++;
+            if (frames % DEPLOY_EVERY == 0) {
+                replay.deployEnemies(1);
+            }
+            replay.advance(FRAME);
+        }
+        return frames;
+    }
+
+    /**
+     * Delay of each of N ships, from burn levels already read.
+     */
+    @Benchmark
+    public void calculateDelay(Blackhole blackhole) {
+        for (int i = 0; i < ships; i++) {
+            blackhole.consume(BurnSpeedCalculator.calculateDelay(burns[i], playerMinBurn, hullSizes[i], curve));
+        }
+    }
+
+    /**
+     * Burn level of each of N ships, through their stats.
+     */
+    @Benchmark
+    public void getShipBurn(Blackhole blackhole) {
+        for (int i = 0; i < ships; i++) {
+            blackhole.consume(BurnSpeedCalculator.getShipBurn(members.get(i)));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package harshsector.features.stealthmarket;
+
+import com.fs.starfarer.api.impl.campaign.ids.Industries;
+import harshsector.core.PlayerStateTracker;
+import harshsector.core.Settings;
+import harshsector.harness.FakeFleet;
+import harshsector.harness.FakeGame;
+import harshsector.harness.FakeMarket;
+import harshsector.harness.Harness;
+import lunalib.lunaSettings.LunaSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the black market tab's isEnabled check, by number of markets.
+ *
+ * Each op checks the next market in turn. With LunaLib every access rule is on; without it
+ * only the transponder rule is, as in a game without LunaLib. {@link #isEnabledAfterChange}
+ * toggles the transponder before each check, so every check re-evaluates its market.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackMarketBenchmark {
+
+    private static final String[] FACTIONS = { "hegemony", "tritachyon", "persean", "luddic_church", "pirates" };
+    private static final String[] RULES = {
+        "harshsector_transponder_check", "harshsector_blackmarket_reputation_check",
+        "harshsector_blackmarket_military_check", "harshsector_blackmarket_patrol_check"
+    };
+
+    @Param({ "10", "100", "1000" })
+    public int markets;
+
+    @Param({ "true", "false" })
+    public boolean lunaLib;
+
+    private FakeFleet player;
+    private RegulatedBlackMarket[] plugins;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Harness.configureLogging();
+        FakeGame game = FakeGame.install(lunaLib);
+        player = game.getPlayerFleet();
+        for (String rule : RULES) {
+            LunaSettings.set(Settings.MOD_ID, rule, true);
+        }
+        Settings.rebuild();
+        StealthMarketFeature.register();
+
+        Random random = new Random(1L);
+        plugins = new RegulatedBlackMarket[markets];
+        for (int i = 0; i < markets; i++) {
+            FakeMarket market = new FakeMarket("market_" + i, FACTIONS[random.nextInt(FACTIONS.length)], 3 + random.nextInt(5));
+            if (random.nextInt(4) == 0) {
+                market.addIndustry(random.nextBoolean() ? Industries.MILITARYBASE : Industries.HIGHCOMMAND);
+            }
+            market.addSubmarket(SubmarketSwapper.REGULATED_BLACK_MARKET, 0);
+            plugins[i] = (RegulatedBlackMarket) market.getPlugin(SubmarketSwapper.REGULATED_BLACK_MARKET);
+        }
+    }
+
+    /**
+     * A check with nothing changed since the market's decision was cached.
+     */
+    @Benchmark
+    public boolean isEnabled() {
+        RegulatedBlackMarket plugin = plugins[next];
+        next = (next + 1) % markets;
+        return plugin.isEnabled(null);
+    }
+
+    /**
+     * A check right after the transponder was toggled.
+     */
+    @Benchmark
+    public boolean isEnabledAfterChange() {
+        player.setTransponderOn(!player.isTransponderOn());
+        PlayerStateTracker.sample();
+        return isEnabled();
+    }
+}
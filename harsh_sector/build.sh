@@ -1,18 +1,48 @@
 #!/bin/bash
 # Build script for Harsh Sector mod
 # Run from the harsh_sector directory: ./build.sh
+#
+# Paths default to a standard install for the current OS and can be overridden:
+#   STARSECTOR_DIR  - game install (the .app on macOS, the extracted folder on Linux)
+#   LUNALIB_JAR     - path to LunaLib.jar
+#   JAVA_HOME       - JDK 17 to compile with (falls back to javac on PATH)
 
 set -e  # Exit on error
 
 # Paths
-JAVA_HOME="/opt/homebrew/opt/openjdk@17"
-STARSECTOR_JAVA="/Applications/Starsector.app/Contents/Resources/Java"
+case "$(uname -s)" in
+    Darwin)
+        JAVA_HOME="${JAVA_HOME:-/opt/homebrew/opt/openjdk@17}"
+        STARSECTOR_DIR="${STARSECTOR_DIR:-/Applications/Starsector.app}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR/Contents/Resources/Java"
+        ;;
+    *)
+        # Linux builds ship the game jars in the install root
+        STARSECTOR_DIR="${STARSECTOR_DIR:-$HOME/starsector}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR"
+        ;;
+esac
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVAC="$JAVA_HOME/bin/javac"
+    JAR="$JAVA_HOME/bin/jar"
+else
+    JAVAC="javac"
+    JAR="jar"
+fi
+
 STARSECTOR_API="$STARSECTOR_JAVA/starfarer.api.jar"
 LOG4J="$STARSECTOR_JAVA/log4j-1.2.9.jar"
 LWJGL_UTIL="$STARSECTOR_JAVA/lwjgl_util.jar"
 
+if [ ! -f "$STARSECTOR_API" ]; then
+    echo "ERROR: starfarer.api.jar not found at $STARSECTOR_API"
+    echo "Set STARSECTOR_DIR to your Starsector install."
+    exit 1
+fi
+
 # LunaLib (soft dependency - required for compilation, optional at runtime)
-LUNALIB_JAR="/Applications/Starsector.app/mods/LunaLib/jars/LunaLib.jar"
+LUNALIB_JAR="${LUNALIB_JAR:-$STARSECTOR_DIR/mods/LunaLib/jars/LunaLib.jar}"
 if [ ! -f "$LUNALIB_JAR" ]; then
     echo "ERROR: LunaLib not found at $LUNALIB_JAR"
     echo "Install LunaLib to compile. Download from: https://github.com/Lukas22041/LunaLib/releases"
@@ -33,14 +63,14 @@ mkdir -p "$JAR_DIR"
 echo "=== Compiling Java files ==="
 # Compile for Java 17 (Starsector 0.98a uses Java 17)
 # Find all Java files (supports subpackages)
-find "$SRC_DIR" -name "*.java" | xargs "$JAVA_HOME/bin/javac" \
+find "$SRC_DIR" -name "*.java" | xargs "$JAVAC" \
     -cp "$CLASSPATH" \
     -d "$BUILD_DIR" \
     --release 17
 
 echo "=== Creating JAR ==="
 # Create JAR file from compiled classes
-"$JAVA_HOME/bin/jar" cf "$JAR_DIR/$JAR_NAME" -C "$BUILD_DIR" .
+"$JAR" cf "$JAR_DIR/$JAR_NAME" -C "$BUILD_DIR" .
 
 echo "=== Done ==="
 echo "JAR created: $JAR_DIR/$JAR_NAME"
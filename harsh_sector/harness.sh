@@ -0,0 +1,50 @@
+#!/bin/bash
+# Headless harness for Harsh Sector - runs the mod's hot paths against fakes of the game API
+# Run from the harsh_sector directory after ./build.sh:
+#   ./harness.sh --scenario=retreat --ships=500 --runs=5
+#
+# Options are documented in harshsector.harness.Harness.
+# Uses the same STARSECTOR_DIR and JAVA_HOME overrides as build.sh. No game instance is
+# started, and LunaLib.jar isn't needed - the harness brings a stand-in for its settings API.
+
+set -e  # Exit on error
+
+# Paths
+case "$(uname -s)" in
+    Darwin)
+        JAVA_HOME="${JAVA_HOME:-/opt/homebrew/opt/openjdk@17}"
+        STARSECTOR_DIR="${STARSECTOR_DIR:-/Applications/Starsector.app}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR/Contents/Resources/Java"
+        ;;
+    *)
+        STARSECTOR_DIR="${STARSECTOR_DIR:-$HOME/starsector}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR"
+        ;;
+esac
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+    JAVAC="$JAVA_HOME/bin/javac"
+else
+    JAVA="java"
+    JAVAC="javac"
+fi
+
+MOD_JAR="jars/HarshSector.jar"
+if [ ! -f "$MOD_JAR" ]; then
+    echo "ERROR: $MOD_JAR not found - run ./build.sh first"
+    exit 1
+fi
+
+GAME_CLASSPATH="$STARSECTOR_JAVA/starfarer.api.jar:$STARSECTOR_JAVA/log4j-1.2.9.jar:$STARSECTOR_JAVA/lwjgl_util.jar"
+HARNESS_DIR="build/harness"
+
+# Compile the harness and its LunaLib stand-in
+rm -rf "$HARNESS_DIR"
+mkdir -p "$HARNESS_DIR"
+find harness/src -name "*.java" | xargs "$JAVAC" \
+    -cp "$MOD_JAR:$GAME_CLASSPATH" \
+    -d "$HARNESS_DIR" \
+    --release 17
+
+exec "$JAVA" -cp "$HARNESS_DIR:$MOD_JAR:$GAME_CLASSPATH" harshsector.harness.Harness "$@"
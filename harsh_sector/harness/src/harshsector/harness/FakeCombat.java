@@ -0,0 +1,154 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.combat.BattleCreationContext;
+import com.fs.starfarer.api.combat.CombatEngineAPI;
+import com.fs.starfarer.api.combat.CombatFleetManagerAPI;
+import com.fs.starfarer.api.combat.EveryFrameCombatPlugin;
+import com.fs.starfarer.api.fleet.FleetGoal;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import com.fs.starfarer.api.input.InputEventAPI;
+import com.fs.starfarer.api.mission.FleetSide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A battle: the engine, each side's reserves and the combat plugins running in it.
+ *
+ * The engine advances its plugins like the game does - a plugin added while the battle runs
+ * is initialized when it's added, and one that removes itself stops being advanced. Enemy
+ * ships only leave the reserves when a scenario deploys them, standing in for the AI.
+ */
+public final class FakeCombat {
+
+    private static final List<InputEventAPI> NO_EVENTS = Collections.emptyList();
+
+    public final CombatEngineAPI api;
+
+    private final BattleCreationContext context;
+    private final FleetManager player = new FleetManager();
+    private final FleetManager enemy = new FleetManager();
+    private final CombatFleetManagerAPI playerApi = Fakes.of(CombatFleetManagerAPI.class, player);
+    private final CombatFleetManagerAPI enemyApi = Fakes.of(CombatFleetManagerAPI.class, enemy);
+    private final List<EveryFrameCombatPlugin> plugins = new ArrayList<EveryFrameCombatPlugin>();
+    private float elapsed = 0f;
+    private String status;
+    private int statusUpdates = 0;
+
+    /**
+     * A battle with every member of both fleets in reserve.
+     */
+    public FakeCombat(FakeFleet playerFleet, FleetGoal playerGoal, FakeFleet enemyFleet) {
+        this.context = new BattleCreationContext(playerFleet.api, playerGoal, enemyFleet.api, FleetGoal.ATTACK);
+        this.api = Fakes.of(CombatEngineAPI.class, this);
+        player.reserves.addAll(playerFleet.getMembers());
+        enemy.reserves.addAll(enemyFleet.getMembers());
+        Global.setCombatEngine(api);
+    }
+
+    /**
+     * Advance every plugin by one frame.
+     */
+    public void advance(float amount) {
+        elapsed += amount;
+        for (EveryFrameCombatPlugin plugin : new ArrayList<EveryFrameCombatPlugin>(plugins)) {
+            plugin.advance(amount, NO_EVENTS);
+        }
+    }
+
+    /**
+     * Move up to the given number of enemy ships from reserves onto the field.
+     */
+    public void deployEnemies(int count) {
+        for (int i = 0; i < count && !enemy.reserves.isEmpty(); i++) {
+            enemy.deployed.add(enemy.reserves.remove(0));
+        }
+    }
+
+    /**
+     * Add a ship to the enemy reserves, as a reinforcement script would.
+     */
+    public void reinforceEnemy(FleetMemberAPI member) {
+        enemy.reserves.add(member);
+    }
+
+    public int getEnemyReserves() {
+        return enemy.reserves.size();
+    }
+
+    public int getEnemyDeployed() {
+        return enemy.deployed.size();
+    }
+
+    public boolean hasPlugin(EveryFrameCombatPlugin plugin) {
+        return plugins.contains(plugin);
+    }
+
+    /**
+     * The last status line shown to the player, and how many times one was shown.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public int getStatusUpdates() {
+        return statusUpdates;
+    }
+
+    public boolean isSimulation() {
+        return false;
+    }
+
+    public boolean isPaused() {
+        return false;
+    }
+
+    public BattleCreationContext getContext() {
+        return context;
+    }
+
+    public CombatFleetManagerAPI getFleetManager(FleetSide side) {
+        return side == FleetSide.PLAYER ? playerApi : enemyApi;
+    }
+
+    public void addPlugin(EveryFrameCombatPlugin plugin) {
+        plugins.add(plugin);
+        plugin.init(api);
+    }
+
+    public void removePlugin(EveryFrameCombatPlugin plugin) {
+        plugins.remove(plugin);
+    }
+
+    public float getTotalElapsedTime(boolean includePaused) {
+        return elapsed;
+    }
+
+    public void maintainStatusForPlayerShip(Object key, String spriteName, String title, String data, boolean isDebuff) {
+        status = title + ": " + data;
+        statusUpdates++;
+    }
+
+    static final class FleetManager {
+        final List<FleetMemberAPI> reserves = new ArrayList<FleetMemberAPI>();
+        final List<FleetMemberAPI> deployed = new ArrayList<FleetMemberAPI>();
+
+        public List<FleetMemberAPI> getReservesCopy() {
+            return new ArrayList<FleetMemberAPI>(reserves);
+        }
+
+        public List<FleetMemberAPI> getDeployedCopy() {
+            return new ArrayList<FleetMemberAPI>(deployed);
+        }
+
+        public void addToReserves(FleetMemberAPI member) {
+            reserves.add(member);
+        }
+
+        public void removeFromReserves(FleetMemberAPI member) {
+            reserves.remove(member);
+        }
+    }
+}
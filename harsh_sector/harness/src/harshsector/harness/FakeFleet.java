@@ -0,0 +1,95 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.campaign.BattleAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.characters.AbilityPlugin;
+import com.fs.starfarer.api.fleet.FleetDataAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A campaign fleet: its members and transponder.
+ */
+public final class FakeFleet {
+
+    public final CampaignFleetAPI api;
+    final FleetDataAPI data;
+
+    private final String name;
+    private final List<FleetMemberAPI> members = new ArrayList<FleetMemberAPI>();
+    private boolean transponderOn = true;
+
+    public FakeFleet(String name) {
+        this.name = name;
+        this.api = Fakes.of(CampaignFleetAPI.class, this);
+        this.data = Fakes.of(FleetDataAPI.class, new Data());
+    }
+
+    /**
+     * Add a member to this fleet.
+     */
+    public FleetMemberAPI add(FakeMember member) {
+        member.setFleet(this);
+        members.add(member.api);
+        return member.api;
+    }
+
+    public List<FleetMemberAPI> getMembers() {
+        return members;
+    }
+
+    public void setTransponderOn(boolean on) {
+        transponderOn = on;
+    }
+
+    public FleetDataAPI getFleetData() {
+        return data;
+    }
+
+    public int getNumMembersFast() {
+        return members.size();
+    }
+
+    public int getFleetPoints() {
+        return members.size() * 10;
+    }
+
+    public boolean isTransponderOn() {
+        return transponderOn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BattleAPI getBattle() {
+        // Not in a campaign battle - the pursuit is this fleet alone
+        return null;
+    }
+
+    public AbilityPlugin getAbility(String id) {
+        // No abilities - never emergency burning
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "FakeFleet[" + name + ", " + members.size() + " members]";
+    }
+
+    final class Data {
+        public List<FleetMemberAPI> getMembersListCopy() {
+            return new ArrayList<FleetMemberAPI>(members);
+        }
+
+        public int getNumMembers() {
+            return members.size();
+        }
+
+        public CampaignFleetAPI getFleet() {
+            return api;
+        }
+    }
+}
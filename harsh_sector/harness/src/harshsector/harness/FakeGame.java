@@ -0,0 +1,148 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.ModManagerAPI;
+import com.fs.starfarer.api.SettingsAPI;
+import com.fs.starfarer.api.campaign.CampaignClockAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.RepLevel;
+import com.fs.starfarer.api.campaign.SectorAPI;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The game globals the mod reads through Global: settings, the mod manager, the sector and its clock.
+ *
+ * {@link #install(boolean)} puts fakes for all of them in Global. The sector has a player
+ * fleet, a clock that only moves when a scenario advances it, and factions that are all
+ * neutral toward the player. Transient scripts are kept but never run. Everything else the
+ * sector offers (economy, listeners, persistent data) answers with defaults.
+ */
+public final class FakeGame {
+
+    // Clock ticks per campaign day
+    private static final long TICKS_PER_DAY = 1000L;
+
+    private final boolean lunaLib;
+    private final FakeFleet playerFleet = new FakeFleet("player");
+    private final List<EveryFrameScript> scripts = new ArrayList<EveryFrameScript>();
+    private final Map<String, FactionAPI> factions = new HashMap<String, FactionAPI>();
+    private long timestamp = 0L;
+
+    private FakeGame(boolean lunaLib) {
+        this.lunaLib = lunaLib;
+    }
+
+    /**
+     * Create a game and make it the one Global returns.
+     *
+     * @param lunaLib Whether the mod manager reports LunaLib as enabled
+     */
+    public static FakeGame install(boolean lunaLib) {
+        FakeGame game = new FakeGame(lunaLib);
+        Global.setSettings(Fakes.of(SettingsAPI.class, game.new Settings()));
+        Global.setSector(Fakes.of(SectorAPI.class, game.new Sector()));
+        return game;
+    }
+
+    public FakeFleet getPlayerFleet() {
+        return playerFleet;
+    }
+
+    /**
+     * Move the campaign clock forward.
+     */
+    public void advanceDays(float days) {
+        timestamp += (long) (days * TICKS_PER_DAY);
+    }
+
+    final class Settings {
+        private final ModManagerAPI modManager = Fakes.of(ModManagerAPI.class, new ModManager());
+
+        public ModManagerAPI getModManager() {
+            return modManager;
+        }
+
+        public String getSpriteName(String category, String id) {
+            return "graphics/" + category + "/" + id + ".png";
+        }
+    }
+
+    final class ModManager {
+        public boolean isModEnabled(String id) {
+            return lunaLib && "lunalib".equals(id);
+        }
+    }
+
+    final class Sector {
+        private final CampaignClockAPI clock = Fakes.of(CampaignClockAPI.class, new Clock());
+
+        public CampaignFleetAPI getPlayerFleet() {
+            return playerFleet.api;
+        }
+
+        public CampaignClockAPI getClock() {
+            return clock;
+        }
+
+        public FactionAPI getFaction(String factionId) {
+            FactionAPI faction = factions.get(factionId);
+            if (faction == null) {
+                faction = Fakes.of(FactionAPI.class, new Faction(factionId));
+                factions.put(factionId, faction);
+            }
+            return faction;
+        }
+
+        public FactionAPI getPlayerFaction() {
+            return getFaction("player");
+        }
+
+        public void addTransientScript(EveryFrameScript script) {
+            scripts.add(script);
+        }
+    }
+
+    final class Clock {
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getDay() {
+            return (int) (timestamp / TICKS_PER_DAY % 30) + 1;
+        }
+
+        public int getMonth() {
+            return (int) (timestamp / TICKS_PER_DAY / 30 % 12) + 1;
+        }
+
+        public int getCycle() {
+            return 206 + (int) (timestamp / TICKS_PER_DAY / 360);
+        }
+
+        public float getElapsedDaysSince(long since) {
+            return (float) (timestamp - since) / TICKS_PER_DAY;
+        }
+    }
+
+    static final class Faction {
+        private final String id;
+
+        Faction(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public RepLevel getRelationshipLevel(FactionAPI other) {
+            return RepLevel.NEUTRAL;
+        }
+    }
+}
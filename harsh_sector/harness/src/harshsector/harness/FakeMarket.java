@@ -0,0 +1,199 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.CargoAPI;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.SectorEntityToken;
+import com.fs.starfarer.api.campaign.SubmarketPlugin;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import com.fs.starfarer.api.impl.campaign.submarkets.BlackMarketPlugin;
+import harshsector.features.stealthmarket.RegulatedBlackMarket;
+import harshsector.features.stealthmarket.SubmarketSwapper;
+import org.lwjgl.util.vector.Vector2f;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A market with its industries and submarkets, and the submarkets' cargo.
+ *
+ * Adding a submarket creates its plugin the way submarkets.csv would: the mod's regulated
+ * black market gets a RegulatedBlackMarket, initialized with the submarket, and any other
+ * submarket gets a plugin that only answers defaults. The market's primary entity sits
+ * alone in its location - no fleets nearby.
+ */
+public final class FakeMarket {
+
+    public final MarketAPI api;
+
+    private final String id;
+    private final String factionId;
+    private final int size;
+    private final Set<String> industries = new HashSet<String>();
+    private final Map<String, Submarket> submarkets = new LinkedHashMap<String, Submarket>();
+    private final SectorEntityToken entity = Fakes.of(SectorEntityToken.class, new Entity());
+
+    public FakeMarket(String id, String factionId, int size) {
+        this.id = id;
+        this.factionId = factionId;
+        this.size = size;
+        this.api = Fakes.of(MarketAPI.class, this);
+    }
+
+    public void addIndustry(String industryId) {
+        industries.add(industryId);
+    }
+
+    /**
+     * Add a submarket whose cargo holds the given number of stacks.
+     */
+    public SubmarketAPI addSubmarket(String specId, int stacks) {
+        Submarket submarket = new Submarket(specId, stacks);
+        submarkets.put(specId, submarket);
+        if (submarket.plugin instanceof BlackMarketPlugin) {
+            ((BlackMarketPlugin) submarket.plugin).init(submarket.api);
+        }
+        return submarket.api;
+    }
+
+    /**
+     * Stacks in a submarket's cargo, or -1 if the market doesn't have it.
+     */
+    public int getStacks(String specId) {
+        Submarket submarket = submarkets.get(specId);
+        return submarket != null ? Fakes.unwrap(submarket.cargo, Cargo.class).stacks : -1;
+    }
+
+    /**
+     * The plugin of a submarket, or null if the market doesn't have it.
+     */
+    public SubmarketPlugin getPlugin(String specId) {
+        Submarket submarket = submarkets.get(specId);
+        return submarket != null ? submarket.plugin : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return "Market " + id;
+    }
+
+    public String getFactionId() {
+        return factionId;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isPlayerOwned() {
+        return false;
+    }
+
+    public SectorEntityToken getPrimaryEntity() {
+        return entity;
+    }
+
+    public boolean hasIndustry(String industryId) {
+        return industries.contains(industryId);
+    }
+
+    public SubmarketAPI getSubmarket(String specId) {
+        Submarket submarket = submarkets.get(specId);
+        return submarket != null ? submarket.api : null;
+    }
+
+    public List<SubmarketAPI> getSubmarketsCopy() {
+        List<SubmarketAPI> copy = new ArrayList<SubmarketAPI>();
+        for (Submarket submarket : submarkets.values()) {
+            copy.add(submarket.api);
+        }
+        return copy;
+    }
+
+    public void addSubmarket(String specId) {
+        addSubmarket(specId, 0);
+    }
+
+    public void removeSubmarket(String specId) {
+        submarkets.remove(specId);
+    }
+
+    @Override
+    public String toString() {
+        return "FakeMarket[" + id + "]";
+    }
+
+    final class Submarket {
+        final SubmarketAPI api = Fakes.of(SubmarketAPI.class, this);
+        final String specId;
+        final SubmarketPlugin plugin;
+        final CargoAPI cargo;
+
+        Submarket(String specId, int stacks) {
+            this.specId = specId;
+            this.plugin = SubmarketSwapper.REGULATED_BLACK_MARKET.equals(specId)
+                ? new RegulatedBlackMarket() : Fakes.of(SubmarketPlugin.class, new Object());
+            this.cargo = Fakes.of(CargoAPI.class, new Cargo(stacks));
+        }
+
+        public String getSpecId() {
+            return specId;
+        }
+
+        public SubmarketPlugin getPlugin() {
+            return plugin;
+        }
+
+        public CargoAPI getCargo() {
+            return cargo;
+        }
+
+        public MarketAPI getMarket() {
+            return FakeMarket.this.api;
+        }
+
+        public String getNameOneLine() {
+            return specId;
+        }
+    }
+
+    static final class Entity {
+        private final Vector2f location = new Vector2f();
+        private final LocationAPI containingLocation = Fakes.of(LocationAPI.class, new Location());
+
+        public Vector2f getLocation() {
+            return location;
+        }
+
+        public LocationAPI getContainingLocation() {
+            return containingLocation;
+        }
+    }
+
+    static final class Location {
+        public List<CampaignFleetAPI> getFleets() {
+            return Collections.emptyList();
+        }
+    }
+
+    static final class Cargo {
+        int stacks;
+
+        Cargo(int stacks) {
+            this.stacks = stacks;
+        }
+
+        public void addAll(CargoAPI other) {
+            stacks += Fakes.unwrap(other, Cargo.class).stacks;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.combat.MutableShipStatsAPI;
+import com.fs.starfarer.api.combat.MutableStat;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI.HullSize;
+import com.fs.starfarer.api.fleet.FleetDataAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+
+/**
+ * A ship: hull size, burn level and mothball state.
+ */
+public final class FakeMember {
+
+    // Hull sizes
+    public static final int FRIGATE = 0;
+    public static final int DESTROYER = 1;
+    public static final int CRUISER = 2;
+    public static final int CAPITAL = 3;
+
+    public final FleetMemberAPI api;
+
+    private final String id;
+    private final int hullSize;
+    private final MutableStat maxBurn;
+    private final MutableShipStatsAPI stats;
+    private final ShipHullSpecAPI hullSpec;
+    private boolean mothballed = false;
+    private FakeFleet fleet;
+
+    public FakeMember(String id, int hullSize, int burn) {
+        this.id = id;
+        this.hullSize = hullSize;
+        this.maxBurn = new MutableStat(burn);
+        this.stats = Fakes.of(MutableShipStatsAPI.class, new Stats());
+        this.hullSpec = Fakes.of(ShipHullSpecAPI.class, new HullSpec());
+        this.api = Fakes.of(FleetMemberAPI.class, this);
+    }
+
+    void setFleet(FakeFleet fleet) {
+        this.fleet = fleet;
+    }
+
+    public void setMothballed(boolean mothballed) {
+        this.mothballed = mothballed;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getShipName() {
+        return "HSS " + id;
+    }
+
+    public MutableShipStatsAPI getStats() {
+        return stats;
+    }
+
+    public ShipHullSpecAPI getHullSpec() {
+        return hullSpec;
+    }
+
+    public boolean isMothballed() {
+        return mothballed;
+    }
+
+    public boolean isFrigate() {
+        return hullSize == FRIGATE;
+    }
+
+    public boolean isDestroyer() {
+        return hullSize == DESTROYER;
+    }
+
+    public boolean isCruiser() {
+        return hullSize == CRUISER;
+    }
+
+    public boolean isCapital() {
+        return hullSize == CAPITAL;
+    }
+
+    public FleetDataAPI getFleetData() {
+        return fleet != null ? fleet.data : null;
+    }
+
+    @Override
+    public String toString() {
+        return "FakeMember[" + id + "]";
+    }
+
+    final class HullSpec {
+        public HullSize getHullSize() {
+            switch (hullSize) {
+                case FRIGATE: return HullSize.FRIGATE;
+                case DESTROYER: return HullSize.DESTROYER;
+                case CRUISER: return HullSize.CRUISER;
+                default: return HullSize.CAPITAL_SHIP;
+            }
+        }
+    }
+
+    final class Stats {
+        public MutableStat getMaxBurnLevel() {
+            return maxBurn;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package harshsector.harness;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stand-ins for game API interfaces, backed by plain objects.
+ *
+ * The API interfaces have hundreds of methods between them, and the harness only needs the
+ * few the mod calls. A fake is a small class with just those methods, named and typed like
+ * the interface's; {@link #of(Class, Object)} wraps it in a dynamic proxy that implements
+ * the interface, forwards calls to the methods it has and answers everything else with a
+ * default (0, false or null). Fakes compile against whatever version of starfarer.api.jar
+ * the mod is built with, as long as the methods they do implement keep their signatures.
+ *
+ * Unimplemented methods that get called are counted, so a scenario that wanders into code
+ * the fakes don't cover shows up in the report instead of silently returning defaults.
+ * Every call is counted too, so reports can separate the proxies' own cost from the mod's.
+ */
+public final class Fakes {
+
+    private static final Map<Class<?>, Map<Method, Method>> targets = new HashMap<Class<?>, Map<Method, Method>>();
+    private static final Map<String, Integer> unimplemented = new TreeMap<String, Integer>();
+
+    private static long calls = 0;
+
+    private Fakes() {
+    }
+
+    /**
+     * Implement an API interface with a fake's methods.
+     */
+    public static <T> T of(Class<T> api, Object fake) {
+        return api.cast(Proxy.newProxyInstance(api.getClassLoader(), new Class<?>[] { api }, new Handler(fake)));
+    }
+
+    /**
+     * The fake behind an API object made by {@link #of(Class, Object)}.
+     */
+    public static <F> F unwrap(Object api, Class<F> type) {
+        return type.cast(((Handler) Proxy.getInvocationHandler(api)).fake);
+    }
+
+    /**
+     * Calls made to fakes so far, implemented or not.
+     */
+    public static long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Unimplemented methods called so far, as "Interface.method" to number of calls.
+     */
+    public static Map<String, Integer> getUnimplemented() {
+        return unimplemented;
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object fake;
+        private final Map<Method, Method> methods;
+
+        Handler(Object fake) {
+            this.fake = fake;
+            Map<Method, Method> known = targets.get(fake.getClass());
+            if (known == null) {
+                known = new HashMap<Method, Method>();
+                targets.put(fake.getClass(), known);
+            }
+            this.methods = known;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            calls++;
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+
+            Method target = methods.get(method);
+            if (target == null && !methods.containsKey(method)) {
+                target = find(fake.getClass(), method);
+                methods.put(method, target);
+            }
+            if (target == null) {
+                String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+                Integer count = unimplemented.get(name);
+                unimplemented.put(name, count == null ? 1 : count + 1);
+                return defaultValue(method.getReturnType());
+            }
+
+            try {
+                return target.invoke(fake, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("equals")) return proxy == args[0];
+            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+            return fake.toString();
+        }
+    }
+
+    private static Method find(Class<?> type, Method method) {
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            try {
+                Method target = c.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                target.setAccessible(true);
+                return target;
+            } catch (NoSuchMethodException e) {
+                // Keep looking in the superclass
+            }
+        }
+        return null;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return Boolean.FALSE;
+        if (type == char.class) return (char) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        return 0d;
+    }
+}
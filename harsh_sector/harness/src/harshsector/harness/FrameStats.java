@@ -0,0 +1,141 @@
+package harshsector.harness;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Time, allocation and fake calls of a repeated operation, one sample per call.
+ *
+ * Wrap each call in {@link #begin()} and {@link #end()}. Allocation is what the current
+ * thread allocated in between, as reported by the JVM, minus what an empty begin/end pair
+ * allocates. Fake calls count the proxied API calls the operation made: each one costs the
+ * proxy's reflection, and allocates its argument array if it has arguments, so they're
+ * reported next to the totals (see {@link #calibrate()}) rather than subtracted from them.
+ */
+public final class FrameStats {
+
+    private static final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final long threadId = Thread.currentThread().getId();
+
+    // What begin/end allocate themselves, measured once
+    private static long baselineBytes = -1L;
+
+    private final String name;
+    private long[] nanos = new long[1024];
+    private long totalBytes = 0L;
+    private long totalCalls = 0L;
+    private int samples = 0;
+
+    private long startNanos;
+    private long startBytes;
+    private long startCalls;
+
+    public FrameStats(String name) {
+        this.name = name;
+        if (baselineBytes < 0) {
+            baselineBytes = 0L;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < 100; i++) {
+                long before = allocatedBytes();
+                min = Math.min(min, allocatedBytes() - before);
+            }
+            baselineBytes = min;
+        }
+    }
+
+    public void begin() {
+        startCalls = Fakes.getCalls();
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    public void end() {
+        long elapsed = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes() - startBytes - baselineBytes;
+        long calls = Fakes.getCalls() - startCalls;
+
+        if (samples == nanos.length) {
+            nanos = Arrays.copyOf(nanos, samples * 2);
+        }
+        nanos[samples++] = elapsed;
+        totalBytes += Math.max(0L, bytes);
+        totalCalls += calls;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * One report line: samples, mean/p50/p99/max time, bytes and fake calls per call.
+     */
+    public String report() {
+        if (samples == 0) {
+            return String.format(Locale.ROOT, "%-24s no samples", name);
+        }
+        long[] sorted = Arrays.copyOf(nanos, samples);
+        Arrays.sort(sorted);
+        long sum = 0L;
+        for (long value : sorted) {
+            sum += value;
+        }
+        return String.format(Locale.ROOT, "%-24s %8d %12.0f %10d %10d %10d %12.1f %10.1f",
+            name, samples, (double) sum / samples, percentile(sorted, 0.5), percentile(sorted, 0.99),
+            sorted[samples - 1], (double) totalBytes / samples, (double) totalCalls / samples);
+    }
+
+    /**
+     * Header for {@link #report()} lines.
+     */
+    public static String header() {
+        return String.format(Locale.ROOT, "%-24s %8s %12s %10s %10s %10s %12s %10s",
+            "operation", "samples", "mean ns", "p50 ns", "p99 ns", "max ns", "bytes/op", "fakes/op");
+    }
+
+    /**
+     * Time and allocation of one fake call, so per-op fake calls can be turned into overhead.
+     */
+    public static String calibrate() {
+        Probe probe = Fakes.of(Probe.class, new ProbeFake());
+        FrameStats noArgs = new FrameStats("fake call, no args");
+        FrameStats withArgs = new FrameStats("fake call, 1 arg");
+        for (int i = 0; i < 20000; i++) {
+            noArgs.begin();
+            probe.get();
+            noArgs.end();
+            withArgs.begin();
+            probe.set(i);
+            withArgs.end();
+        }
+        return noArgs.report() + "\n" + withArgs.report();
+    }
+
+    interface Probe {
+        int get();
+
+        void set(int value);
+    }
+
+    static final class ProbeFake {
+        private int value;
+
+        public int get() {
+            return value;
+        }
+
+        public void set(int value) {
+            this.value = value;
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+}
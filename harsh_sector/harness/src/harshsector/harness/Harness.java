@@ -0,0 +1,360 @@
+package harshsector.harness;
+
+import com.fs.starfarer.api.fleet.FleetGoal;
+import com.fs.starfarer.api.impl.campaign.ids.Industries;
+import com.fs.starfarer.api.impl.campaign.ids.Submarkets;
+import harshsector.core.Metrics;
+import harshsector.core.PlayerStateTracker;
+import harshsector.core.Settings;
+import harshsector.features.retreat.TacticalRetreatPlugin;
+import harshsector.features.stealthmarket.RegulatedBlackMarket;
+import harshsector.features.stealthmarket.StealthMarketFeature;
+import harshsector.features.stealthmarket.SubmarketSwapper;
+import lunalib.lunaSettings.LunaSettings;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Headless harness that runs the mod's hot paths against fakes of the game API.
+ *
+ * Each scenario builds its world from fakes (see {@link Fakes}), drives the mod's own classes
+ * the way the game would, and reports per-call time, allocation and fake API calls (see
+ * {@link FrameStats}). Scenarios:
+ * - retreat: a retreat battle with a large enemy fleet in reserves. TacticalRetreatPlugin is
+ *   initialized, then advanced at 60 frames a second while the enemy deploys 5 ships a
+ *   second, until the plugin detaches or 4 minutes have passed.
+ * - retreat-late: the same battle with reserve watching on, and 10 ships a second joining the
+ *   enemy reserves from 30 to 40 seconds in. Needs --lunalib=true to turn watching on.
+ * - swap: markets with vanilla black markets, opened twice. The first pass swaps every black
+ *   market for the regulated one, the second only finds them swapped.
+ * - is-enabled: the black market tab's RegulatedBlackMarket.isEnabled, called once a frame
+ *   for each market in turn. The transponder is toggled after each pass over the markets and
+ *   the clock moves a day every 10 passes, so cached decisions are invalidated like in play.
+ *   With --lunalib=true every access rule is turned on.
+ *
+ * Runs headless - no game instance needed, only the mod jar, starfarer.api.jar and log4j.
+ * The harness brings its own stand-in for LunaLib's settings API, so LunaLib.jar isn't needed:
+ *
+ *   ./harness.sh --scenario=retreat --ships=500 --runs=5
+ *
+ * Each scenario runs --runs times in the same JVM and only the last run is reported, so the
+ * JIT has warmed up. Times include the fakes' own cost, which is reported up front per call;
+ * multiply by the fakes/op column to see how much of an operation is the harness.
+ *
+ * Options (defaults in brackets):
+ *   --scenario=NAME           all, retreat, retreat-late, swap or is-enabled [all]
+ *   --ships=N                 enemy ships in retreat battles [500]
+ *   --markets=N               markets for the market scenarios [500]
+ *   --frames=N                isEnabled calls in the is-enabled scenario [100000]
+ *   --seed=N                  [1]
+ *   --lunalib=true|false      whether LunaLib is reported as enabled [true]
+ *   --runs=N                  [3]
+ *   --metrics=true|false      print the mod's Metrics as CSV after each scenario [false]
+ */
+public class Harness {
+
+    private static final String[] SCENARIOS = { "retreat", "retreat-late", "swap", "is-enabled" };
+    private static final String[] FACTIONS = { "hegemony", "tritachyon", "persean", "luddic_church", "pirates" };
+
+    // Retreat battles run at 60 frames a second, for 4 minutes at most
+    private static final float FRAME = 1f / 60f;
+    private static final int MAX_FRAMES = 60 * 240;
+
+    // The enemy AI deploys a reserve every this many frames (5 a second)
+    private static final int DEPLOY_EVERY = 12;
+
+    // Late reinforcements: 10 a second from 30 to 40 seconds
+    private static final float LATE_FROM = 30f;
+    private static final float LATE_UNTIL = 40f;
+    private static final int LATE_PER_SECOND = 10;
+
+    private static boolean loggingConfigured = false;
+
+    /**
+     * Harness parameters, parsed from the command line.
+     */
+    static final class Config {
+        String scenario = "all";
+        int ships = 500;
+        int markets = 500;
+        int frames = 100000;
+        long seed = 1L;
+        boolean lunaLib = true;
+        int runs = 3;
+        boolean metrics = false;
+
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --option=value, got " + arg);
+                }
+                config.set(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+            config.validate();
+            return config;
+        }
+
+        private void set(String option, String value) {
+            if (option.equals("scenario")) scenario = value;
+            else if (option.equals("ships")) ships = Integer.parseInt(value);
+            else if (option.equals("markets")) markets = Integer.parseInt(value);
+            else if (option.equals("frames")) frames = Integer.parseInt(value);
+            else if (option.equals("seed")) seed = Long.parseLong(value);
+            else if (option.equals("lunalib")) lunaLib = Boolean.parseBoolean(value);
+            else if (option.equals("runs")) runs = Integer.parseInt(value);
+            else if (option.equals("metrics")) metrics = Boolean.parseBoolean(value);
+            else throw new IllegalArgumentException("Unknown option --" + option);
+        }
+
+        private void validate() {
+            if (ships <= 0 || markets <= 0 || frames <= 0) {
+                throw new IllegalArgumentException("--ships, --markets and --frames must be positive");
+            }
+            if (runs <= 0) throw new IllegalArgumentException("--runs must be positive");
+            if (!scenario.equals("all") && indexOf(SCENARIOS, scenario) < 0) {
+                throw new IllegalArgumentException("Unknown scenario " + scenario);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Harness: " + e.getMessage());
+            System.err.println("See the class documentation for options.");
+            System.exit(2);
+            return;
+        }
+
+        configureLogging();
+
+        // The first game decides whether Settings sees LunaLib, for the whole run
+        FakeGame.install(config.lunaLib);
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Harsh Sector harness - ships=%d markets=%d frames=%d lunalib=%s runs=%d seed=%d%n%n",
+            config.ships, config.markets, config.frames, config.lunaLib, config.runs, config.seed));
+        out.append(FrameStats.header()).append('\n');
+        out.append(FrameStats.calibrate()).append("\n\n");
+        System.out.print(out);
+
+        for (String scenario : SCENARIOS) {
+            if (!config.scenario.equals("all") && !config.scenario.equals(scenario)) continue;
+
+            String report = null;
+            for (int run = 0; run < config.runs; run++) {
+                report = run(scenario, config);
+            }
+            System.out.println("[" + scenario + "]");
+            System.out.println(report);
+            if (config.metrics) {
+                System.out.println(Metrics.toCsv());
+            }
+        }
+
+        Map<String, Integer> unimplemented = Fakes.getUnimplemented();
+        if (!unimplemented.isEmpty()) {
+            System.out.println("Unimplemented fake methods called (answered with defaults):");
+            for (Map.Entry<String, Integer> entry : unimplemented.entrySet()) {
+                System.out.println("  " + entry.getKey() + " x" + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Log warnings and errors to the console, like the game's log but without the noise.
+     */
+    public static void configureLogging() {
+        if (loggingConfigured) return;
+        loggingConfigured = true;
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.WARN);
+    }
+
+    private static String run(String scenario, Config config) {
+        if (scenario.equals("retreat")) return retreat(config, false);
+        if (scenario.equals("retreat-late")) return retreat(config, true);
+        if (scenario.equals("swap")) return swap(config);
+        return isEnabled(config);
+    }
+
+    /**
+     * A retreat battle against config.ships enemies, optionally with late reinforcements.
+     */
+    private static String retreat(Config config, boolean late) {
+        if (late && !config.lunaLib) {
+            return "skipped - reserve watching is off without LunaLib (run with --lunalib=true)\n";
+        }
+
+        FakeGame game = FakeGame.install(config.lunaLib);
+        Random random = new Random(config.seed);
+        if (late) {
+            LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_watch_reserves", true);
+        }
+        Settings.rebuild();
+
+        FakeFleet player = game.getPlayerFleet();
+        for (int i = 0; i < 10; i++) {
+            player.add(new FakeMember("player_" + i, random.nextInt(4), 9 + random.nextInt(3)));
+        }
+        FakeFleet enemy = new FakeFleet("enemy");
+        for (int i = 0; i < config.ships; i++) {
+            enemy.add(enemyMember("enemy_" + i, random));
+        }
+
+        FakeCombat combat = new FakeCombat(player, FleetGoal.ESCAPE, enemy);
+        TacticalRetreatPlugin plugin = new TacticalRetreatPlugin();
+        FrameStats init = new FrameStats("init");
+        FrameStats advance = new FrameStats("advance");
+
+        init.begin();
+        combat.addPlugin(plugin);
+        init.end();
+
+        int frames = 0;
+        int reinforcements = 0;
+        while (combat.hasPlugin(plugin) && frames < MAX_FRAMES) {
+            frames++;
+            if (frames % DEPLOY_EVERY == 0) {
+                combat.deployEnemies(1);
+            }
+            float time = frames * FRAME;
+            if (late && time >= LATE_FROM && time < LATE_UNTIL && frames % (60 / LATE_PER_SECOND) == 0) {
+                FakeMember member = enemyMember("late_" + reinforcements++, random);
+                enemy.add(member);
+                combat.reinforceEnemy(member.api);
+            }
+
+            advance.begin();
+            combat.advance(FRAME);
+            advance.end();
+        }
+
+        if (late) {
+            LunaSettings.set(Settings.MOD_ID, "harshsector_retreat_watch_reserves", null);
+            Settings.rebuild();
+        }
+
+        return init.report() + "\n" + advance.report() + "\n" + String.format(Locale.ROOT,
+            "%s after %.1fs - %d enemies deployed, %d in reserves, %d late, %d status updates, last: %s%n",
+            combat.hasPlugin(plugin) ? "still attached" : "detached", frames * FRAME, combat.getEnemyDeployed(),
+            combat.getEnemyReserves(), reinforcements, combat.getStatusUpdates(), combat.getStatus());
+    }
+
+    private static FakeMember enemyMember(String id, Random random) {
+        return new FakeMember(id, random.nextInt(4), 6 + random.nextInt(7));
+    }
+
+    /**
+     * Open config.markets markets twice: the first pass swaps their black markets.
+     */
+    private static String swap(Config config) {
+        FakeGame.install(config.lunaLib);
+        Settings.rebuild();
+        SubmarketSwapper.register();
+        SubmarketSwapper swapper = new SubmarketSwapper();
+
+        List<FakeMarket> markets = createMarkets(config, Submarkets.SUBMARKET_BLACK);
+        FrameStats first = new FrameStats("open, swap");
+        FrameStats second = new FrameStats("open, already swapped");
+        for (FrameStats pass : new FrameStats[] { first, second }) {
+            for (FakeMarket market : markets) {
+                pass.begin();
+                swapper.onMarketOpened(market.api);
+                swapper.onMarketCargoUpdated(market.api);
+                pass.end();
+            }
+        }
+
+        int swapped = 0;
+        int stacks = 0;
+        for (FakeMarket market : markets) {
+            if (market.getStacks(SubmarketSwapper.REGULATED_BLACK_MARKET) >= 0) swapped++;
+            stacks += Math.max(0, market.getStacks(SubmarketSwapper.REGULATED_BLACK_MARKET));
+        }
+        return first.report() + "\n" + second.report() + "\n" + String.format(Locale.ROOT,
+            "%d of %d black markets swapped, %d cargo stacks carried over%n", swapped, markets.size(), stacks);
+    }
+
+    /**
+     * Call isEnabled on config.markets regulated black markets in turn, config.frames times.
+     */
+    private static String isEnabled(Config config) {
+        FakeGame game = FakeGame.install(config.lunaLib);
+        String[] rules = {
+            "harshsector_transponder_check", "harshsector_blackmarket_reputation_check",
+            "harshsector_blackmarket_military_check", "harshsector_blackmarket_patrol_check"
+        };
+        for (String rule : rules) {
+            LunaSettings.set(Settings.MOD_ID, rule, true);
+        }
+        Settings.rebuild();
+        StealthMarketFeature.register();
+
+        List<FakeMarket> markets = createMarkets(config, SubmarketSwapper.REGULATED_BLACK_MARKET);
+        RegulatedBlackMarket[] plugins = new RegulatedBlackMarket[markets.size()];
+        for (int i = 0; i < plugins.length; i++) {
+            plugins[i] = (RegulatedBlackMarket) markets.get(i).getPlugin(SubmarketSwapper.REGULATED_BLACK_MARKET);
+        }
+        FrameStats calls = new FrameStats("isEnabled");
+        int open = 0;
+        for (int frame = 0; frame < config.frames; frame++) {
+            int index = frame % markets.size();
+            if (index == 0 && frame > 0) {
+                FakeFleet player = game.getPlayerFleet();
+                player.setTransponderOn(!player.isTransponderOn());
+                PlayerStateTracker.sample();
+                if (frame / markets.size() % 10 == 0) {
+                    game.advanceDays(1f);
+                }
+            }
+
+            calls.begin();
+            boolean enabled = plugins[index].isEnabled(null);
+            calls.end();
+            if (enabled) open++;
+        }
+
+        for (String rule : rules) {
+            LunaSettings.set(Settings.MOD_ID, rule, null);
+        }
+        Settings.rebuild();
+
+        return calls.report() + "\n" + String.format(Locale.ROOT,
+            "%d of %d calls open, %d transponder transitions%n", open, config.frames,
+            PlayerStateTracker.getTransponderTransitions());
+    }
+
+    private static List<FakeMarket> createMarkets(Config config, String blackMarket) {
+        Random random = new Random(config.seed);
+        List<FakeMarket> markets = new ArrayList<FakeMarket>();
+        for (int i = 0; i < config.markets; i++) {
+            FakeMarket market = new FakeMarket("market_" + i, FACTIONS[random.nextInt(FACTIONS.length)], 3 + random.nextInt(5));
+            if (random.nextInt(4) == 0) {
+                market.addIndustry(random.nextBoolean() ? Industries.MILITARYBASE : Industries.HIGHCOMMAND);
+            }
+            market.addSubmarket(Submarkets.SUBMARKET_OPEN, 20 + random.nextInt(30));
+            market.addSubmarket(blackMarket, random.nextInt(50));
+            markets.add(market);
+        }
+        return markets;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,76 @@
+package lunalib.lunaSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for LunaLib's settings API, for the offline harness.
+ *
+ * Put on the harness classpath in place of LunaLib.jar. Has the static methods the mod
+ * calls, with the same signatures, backed by a map the harness fills with {@link #set}.
+ * Fields that were never set read as null, like fields LunaLib doesn't know, so the mod
+ * falls back to its defaults. {@link #save} notifies listeners the way saving the mod's
+ * settings in the LunaLib menu does.
+ */
+public class LunaSettings {
+
+    private static final Map<String, Object> values = new HashMap<String, Object>();
+    private static final List<LunaSettingsListener> listeners = new ArrayList<LunaSettingsListener>();
+
+    public static Boolean getBoolean(String modID, String fieldID) {
+        return (Boolean) values.get(modID + "/" + fieldID);
+    }
+
+    public static Float getFloat(String modID, String fieldID) {
+        Number value = (Number) values.get(modID + "/" + fieldID);
+        return value != null ? value.floatValue() : null;
+    }
+
+    public static Integer getInt(String modID, String fieldID) {
+        Number value = (Number) values.get(modID + "/" + fieldID);
+        return value != null ? value.intValue() : null;
+    }
+
+    public static Double getDouble(String modID, String fieldID) {
+        Number value = (Number) values.get(modID + "/" + fieldID);
+        return value != null ? value.doubleValue() : null;
+    }
+
+    public static String getString(String modID, String fieldID) {
+        Object value = values.get(modID + "/" + fieldID);
+        return value != null ? value.toString() : null;
+    }
+
+    public static void addSettingsListener(LunaSettingsListener listener) {
+        listeners.add(listener);
+    }
+
+    public static boolean hasSettingsListenerOfClass(Class<?> type) {
+        for (LunaSettingsListener listener : listeners) {
+            if (listener.getClass() == type) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set a field's value, or clear it with null. Listeners aren't told until {@link #save}.
+     */
+    public static void set(String modID, String fieldID, Object value) {
+        if (value == null) {
+            values.remove(modID + "/" + fieldID);
+        } else {
+            values.put(modID + "/" + fieldID, value);
+        }
+    }
+
+    /**
+     * Tell listeners a mod's settings were saved.
+     */
+    public static void save(String modID) {
+        for (LunaSettingsListener listener : new ArrayList<LunaSettingsListener>(listeners)) {
+            listener.settingsChanged(modID);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package lunalib.lunaSettings;
+
+/**
+ * Stand-in for LunaLib's settings listener, for the offline harness.
+ */
+public interface LunaSettingsListener {
+    void settingsChanged(String modID);
+}
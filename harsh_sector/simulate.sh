@@ -0,0 +1,39 @@
+#!/bin/bash
+# Offline retreat balance simulator for Harsh Sector
+# Run from the harsh_sector directory after ./build.sh:
+#   ./simulate.sh --scenarios=1000000 --delay=30 --max-delay=180 --eburn-modifier=1
+#
+# Options are documented in harshsector.features.retreat.RetreatBalanceSimulator.
+# Uses the same STARSECTOR_DIR and JAVA_HOME overrides as build.sh. No game instance is
+# started - only starfarer.api.jar and log4j are needed on the classpath.
+
+set -e  # Exit on error
+
+# Paths
+case "$(uname -s)" in
+    Darwin)
+        JAVA_HOME="${JAVA_HOME:-/opt/homebrew/opt/openjdk@17}"
+        STARSECTOR_DIR="${STARSECTOR_DIR:-/Applications/Starsector.app}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR/Contents/Resources/Java"
+        ;;
+    *)
+        STARSECTOR_DIR="${STARSECTOR_DIR:-$HOME/starsector}"
+        STARSECTOR_JAVA="$STARSECTOR_DIR"
+        ;;
+esac
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVA="java"
+fi
+
+MOD_JAR="jars/HarshSector.jar"
+if [ ! -f "$MOD_JAR" ]; then
+    echo "ERROR: $MOD_JAR not found - run ./build.sh first"
+    exit 1
+fi
+
+CLASSPATH="$MOD_JAR:$STARSECTOR_JAVA/starfarer.api.jar:$STARSECTOR_JAVA/log4j-1.2.9.jar"
+
+exec "$JAVA" -cp "$CLASSPATH" harshsector.features.retreat.RetreatBalanceSimulator "$@"
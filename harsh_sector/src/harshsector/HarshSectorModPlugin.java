@@ -2,6 +2,16 @@ package harshsector;
 
 import com.fs.starfarer.api.BaseModPlugin;
 import com.fs.starfarer.api.Global;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureDescriptor;
+import harshsector.core.FeatureRegistry;
+import harshsector.core.FrameBudget;
+import harshsector.core.Metrics;
+import harshsector.core.PlayerStateTracker;
+import harshsector.core.Settings;
+import harshsector.features.dmods.DModsFeature;
+import harshsector.features.marketdefense.MarketDefenseFeature;
+import harshsector.features.militaryregulations.MilitaryRegulationsFeature;
 import harshsector.features.retreat.RetreatFeature;
 import harshsector.features.stealthmarket.StealthMarketFeature;
 import org.apache.log4j.Logger;
@@ -15,20 +25,108 @@ import org.apache.log4j.Logger;
  * - onNewGame() - only when starting a new game
  *
  * Each feature is self-contained in its own package under features/.
- * This plugin discovers and registers them on game load.
+ * This plugin describes them to a FeatureRegistry, which registers the enabled
+ * ones on game load. Each descriptor asks its feature class whether it's enabled,
+ * which loads only that class (its setting keys and logger); the rest of a feature
+ * is only loaded by its register(), so disabled features stay out of the game.
  */
 public class HarshSectorModPlugin extends BaseModPlugin {
 
     private static final Logger log = Global.getLogger(HarshSectorModPlugin.class);
 
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey METRICS_ON_SAVE =
+        Settings.booleanKey("harshsector_metrics_on_save", false);
+
+    private final FeatureRegistry features = new FeatureRegistry();
+
+    public HarshSectorModPlugin() {
+        features.add(new FeatureDescriptor("stealth_market", "Stealth Market") {
+            @Override
+            public boolean isEnabled() {
+                return StealthMarketFeature.isEnabled();
+            }
+
+            @Override
+            public void register() {
+                StealthMarketFeature.register();
+            }
+        });
+
+        features.add(new FeatureDescriptor("retreat", "Tactical Retreat") {
+            @Override
+            public boolean isEnabled() {
+                return RetreatFeature.isEnabled();
+            }
+
+            @Override
+            public void register() {
+                RetreatFeature.register();
+            }
+        });
+
+        features.add(new FeatureDescriptor("military_regulations", "Military Market Regulations") {
+            @Override
+            public boolean isEnabled() {
+                return MilitaryRegulationsFeature.isEnabled();
+            }
+
+            @Override
+            public void register() {
+                MilitaryRegulationsFeature.register();
+            }
+        });
+
+        features.add(new FeatureDescriptor("dmods", "D-Mods") {
+            @Override
+            public boolean isEnabled() {
+                return DModsFeature.isEnabled();
+            }
+
+            @Override
+            public void register() {
+                DModsFeature.register();
+            }
+        });
+
+        features.add(new FeatureDescriptor("market_defense", "Enhanced Market Defenses") {
+            @Override
+            public boolean isEnabled() {
+                // Also loaded once after being turned off, to remove the modifiers a save still has
+                return MarketDefenseFeature.isEnabled() || MarketDefenseFeature.hasSavedModifiers();
+            }
+
+            @Override
+            public void register() {
+                MarketDefenseFeature.register();
+            }
+        });
+    }
+
     @Override
     public void onGameLoad(boolean newGame) {
         log.info("Harsh Sector: Initializing features");
 
-        // Register features - each handles its own setup
-        StealthMarketFeature.register();
-        RetreatFeature.register();
+        // Shared services used by features - the frame budget first, so its frame starts
+        // before any other script runs
+        FrameBudget.register();
+        PlayerStateTracker.register();
+
+        // Game listeners shared by all features - features subscribe to the events they need
+        EventDispatcher.register();
 
-        log.info("Harsh Sector: All features registered");
+        // Register enabled features - each handles its own setup
+        features.registerEnabled();
+        EventDispatcher.logSubscribers();
+
+        // Features have declared their setting keys by now - compile them in one pass
+        Settings.rebuild();
+    }
+
+    @Override
+    public void beforeGameSave() {
+        if (METRICS_ON_SAVE.get()) {
+            Metrics.dump();
+        }
     }
 }
@@ -0,0 +1,47 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.combat.CombatEngineAPI;
+import com.fs.starfarer.api.combat.EveryFrameCombatPlugin;
+import com.fs.starfarer.api.combat.ViewportAPI;
+import com.fs.starfarer.api.input.InputEventAPI;
+
+import java.util.List;
+
+/**
+ * Combat plugin that tells EventDispatcher's combat start subscribers a battle has started.
+ *
+ * Registered for every combat in settings.json. On its first frame it dispatches the event and
+ * removes itself from the engine, so battles cost one dispatch - features add their own combat
+ * plugins only to the battles they care about. Dispatching waits for the first frame rather than
+ * init so subscribers never add plugins while the engine is still initializing its plugins.
+ */
+public class CombatStartHook implements EveryFrameCombatPlugin {
+
+    private CombatEngineAPI engine;
+
+    @Override
+    public void init(CombatEngineAPI engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void advance(float amount, List<InputEventAPI> events) {
+        if (engine == null) return;
+        CombatEngineAPI started = engine;
+        engine.removePlugin(this);
+        engine = null;
+        EventDispatcher.combatStarted(started);
+    }
+
+    @Override
+    public void renderInWorldCoords(ViewportAPI viewport) {
+    }
+
+    @Override
+    public void renderInUICoords(ViewportAPI viewport) {
+    }
+
+    @Override
+    public void processInputPreCoreControls(float amount, List<InputEventAPI> events) {
+    }
+}
@@ -0,0 +1,302 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.BaseCampaignEventListener;
+import com.fs.starfarer.api.campaign.BattleAPI;
+import com.fs.starfarer.api.campaign.CampaignEventListener.FleetDespawnReason;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.CoreUITabId;
+import com.fs.starfarer.api.campaign.PlayerMarketTransaction;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import com.fs.starfarer.api.campaign.listeners.ColonyInteractionListener;
+import com.fs.starfarer.api.campaign.listeners.ColonySizeChangeListener;
+import com.fs.starfarer.api.campaign.listeners.CoreUITabListener;
+import com.fs.starfarer.api.campaign.listeners.ListenerManagerAPI;
+import com.fs.starfarer.api.campaign.listeners.SubmarketUpdateListener;
+import com.fs.starfarer.api.combat.CombatEngineAPI;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * One set of game listeners for all features, forwarding each event to the features that subscribed to it.
+ *
+ * Features don't register listeners with the game themselves. They subscribe a handler to the
+ * typed table of each event they need, e.g.
+ *
+ *   EventDispatcher.SUBMARKET_UPDATED.subscribe(new RegulatedCargoFilter());
+ *
+ * Each table holds its subscribers in an array that's replaced on subscribe, so dispatching is
+ * a loop over a plain array - an event no feature subscribed to is a loop over an empty one -
+ * and features only implement the events they handle.
+ *
+ * The game listeners are transient and added once per load by HarshSectorModPlugin, which
+ * also clears the tables first so features subscribe afresh. Combat start comes from
+ * CombatStartHook, which the game adds to every battle.
+ */
+public class EventDispatcher {
+
+    private static final Logger log = Global.getLogger(EventDispatcher.class);
+
+    /** Player opened a market, before its cargo is updated. */
+    public interface MarketOpened { void onMarketOpened(MarketAPI market); }
+
+    /** Player opened a market and its cargo has been updated. */
+    public interface MarketCargoUpdated { void onMarketCargoUpdated(MarketAPI market); }
+
+    /** Player left a market. */
+    public interface MarketClosed { void onMarketClosed(MarketAPI market); }
+
+    /** Player bought or sold something at a market. */
+    public interface MarketTransaction { void onMarketTransaction(PlayerMarketTransaction transaction); }
+
+    /** A submarket restocked its cargo and ships. */
+    public interface SubmarketUpdated { void onSubmarketUpdated(SubmarketAPI submarket); }
+
+    /** A market grew or shrank. */
+    public interface ColonySizeChanged { void onColonySizeChanged(MarketAPI market, int prevSize); }
+
+    /** The economy advanced one tick. */
+    public interface EconomyTick { void onEconomyTick(int iterIndex); }
+
+    /** The economy reached the end of a month. */
+    public interface EconomyMonthEnd { void onEconomyMonthEnd(); }
+
+    /** The player's reputation with a faction changed. */
+    public interface ReputationChanged { void onReputationChanged(String factionId, float delta); }
+
+    /** A campaign battle was resolved. */
+    public interface BattleOccurred { void onBattleOccurred(CampaignFleetAPI primaryWinner, BattleAPI battle); }
+
+    /** A campaign fleet despawned. */
+    public interface FleetDespawned { void onFleetDespawned(CampaignFleetAPI fleet, FleetDespawnReason reason, Object param); }
+
+    /** Player is about to open a core UI tab (fleet, refit, character...). */
+    public interface CoreTabOpened { void onCoreTabOpened(CoreUITabId tab); }
+
+    /** A battle started - sent on its first frame. */
+    public interface CombatStarted { void onCombatStarted(CombatEngineAPI engine); }
+
+    public static final Table<MarketOpened> MARKET_OPENED =
+        new Table<MarketOpened>(MarketOpened.class, "market_opened");
+    public static final Table<MarketCargoUpdated> MARKET_CARGO_UPDATED =
+        new Table<MarketCargoUpdated>(MarketCargoUpdated.class, "market_cargo_updated");
+    public static final Table<MarketClosed> MARKET_CLOSED =
+        new Table<MarketClosed>(MarketClosed.class, "market_closed");
+    public static final Table<MarketTransaction> MARKET_TRANSACTION =
+        new Table<MarketTransaction>(MarketTransaction.class, "market_transaction");
+    public static final Table<SubmarketUpdated> SUBMARKET_UPDATED =
+        new Table<SubmarketUpdated>(SubmarketUpdated.class, "submarket_updated");
+    public static final Table<ColonySizeChanged> COLONY_SIZE_CHANGED =
+        new Table<ColonySizeChanged>(ColonySizeChanged.class, "colony_size_changed");
+    public static final Table<EconomyTick> ECONOMY_TICK =
+        new Table<EconomyTick>(EconomyTick.class, "economy_tick");
+    public static final Table<EconomyMonthEnd> ECONOMY_MONTH_END =
+        new Table<EconomyMonthEnd>(EconomyMonthEnd.class, "economy_month_end");
+    public static final Table<ReputationChanged> REPUTATION_CHANGED =
+        new Table<ReputationChanged>(ReputationChanged.class, "reputation_changed");
+    public static final Table<BattleOccurred> BATTLE_OCCURRED =
+        new Table<BattleOccurred>(BattleOccurred.class, "battle_occurred");
+    public static final Table<FleetDespawned> FLEET_DESPAWNED =
+        new Table<FleetDespawned>(FleetDespawned.class, "fleet_despawned");
+    public static final Table<CoreTabOpened> CORE_TAB_OPENED =
+        new Table<CoreTabOpened>(CoreTabOpened.class, "core_tab_opened");
+    public static final Table<CombatStarted> COMBAT_STARTED =
+        new Table<CombatStarted>(CombatStarted.class, "combat_started");
+
+    private static final Table<?>[] TABLES = {
+        MARKET_OPENED, MARKET_CARGO_UPDATED, MARKET_CLOSED, MARKET_TRANSACTION, SUBMARKET_UPDATED,
+        COLONY_SIZE_CHANGED, ECONOMY_TICK, ECONOMY_MONTH_END, REPUTATION_CHANGED, BATTLE_OCCURRED, FLEET_DESPAWNED,
+        CORE_TAB_OPENED, COMBAT_STARTED
+    };
+
+    /**
+     * The subscribers to one event.
+     */
+    public static final class Table<T> {
+        private final String name;
+        private final Metrics.Counter dispatched;
+        T[] subscribers;
+
+        @SuppressWarnings("unchecked")
+        private Table(Class<T> type, String name) {
+            this.name = name;
+            this.dispatched = Metrics.counter("events." + name);
+            this.subscribers = (T[]) Array.newInstance(type, 0);
+        }
+
+        /**
+         * Add a handler for this event until the next game load. Subscribing the same handler twice has no effect.
+         */
+        public void subscribe(T subscriber) {
+            for (T existing : subscribers) {
+                if (existing == subscriber) return;
+            }
+            T[] grown = Arrays.copyOf(subscribers, subscribers.length + 1);
+            grown[subscribers.length] = subscriber;
+            subscribers = grown;
+        }
+
+        private void clear() {
+            subscribers = Arrays.copyOf(subscribers, 0);
+        }
+
+        /**
+         * Subscribers to dispatch to, counting the event if there are any.
+         */
+        private T[] dispatch() {
+            T[] current = subscribers;
+            if (current.length > 0) {
+                dispatched.increment();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Drop all subscribers and make sure the game listeners are registered.
+     * Called from HarshSectorModPlugin.onGameLoad(), before features register
+     */
+    public static void register() {
+        for (Table<?> table : TABLES) {
+            table.clear();
+        }
+
+        // Check if we're already registered (prevents duplicates on save/load)
+        ListenerManagerAPI listeners = Global.getSector().getListenerManager();
+        if (listeners.hasListenerOfClass(ColonyEvents.class)) {
+            log.info("EventDispatcher already registered, skipping");
+            return;
+        }
+
+        listeners.addListener(new ColonyEvents(), true);
+        Global.getSector().addTransientListener(new CampaignEvents());
+        log.info("EventDispatcher registered");
+    }
+
+    /**
+     * Log how many subscribers each event has.
+     * Called from HarshSectorModPlugin.onGameLoad(), after features register
+     */
+    public static void logSubscribers() {
+        if (!log.isInfoEnabled()) return;
+
+        StringBuilder counts = new StringBuilder();
+        for (Table<?> table : TABLES) {
+            if (table.subscribers.length == 0) continue;
+            if (counts.length() > 0) counts.append(", ");
+            counts.append(table.name).append('=').append(table.subscribers.length);
+        }
+        log.info("EventDispatcher: Subscribers " + (counts.length() > 0 ? counts : "(none)"));
+    }
+
+    static void combatStarted(CombatEngineAPI engine) {
+        for (CombatStarted subscriber : COMBAT_STARTED.dispatch()) {
+            subscriber.onCombatStarted(engine);
+        }
+    }
+
+    /**
+     * Market, submarket, colony size and core UI tab events from the listener manager.
+     */
+    private static class ColonyEvents implements ColonyInteractionListener, SubmarketUpdateListener,
+                                                 ColonySizeChangeListener, CoreUITabListener {
+        @Override
+        public void reportPlayerOpenedMarket(MarketAPI market) {
+            for (MarketOpened subscriber : MARKET_OPENED.dispatch()) {
+                subscriber.onMarketOpened(market);
+            }
+        }
+
+        @Override
+        public void reportPlayerOpenedMarketAndCargoUpdated(MarketAPI market) {
+            for (MarketCargoUpdated subscriber : MARKET_CARGO_UPDATED.dispatch()) {
+                subscriber.onMarketCargoUpdated(market);
+            }
+        }
+
+        @Override
+        public void reportPlayerClosedMarket(MarketAPI market) {
+            for (MarketClosed subscriber : MARKET_CLOSED.dispatch()) {
+                subscriber.onMarketClosed(market);
+            }
+        }
+
+        @Override
+        public void reportPlayerMarketTransaction(PlayerMarketTransaction transaction) {
+            for (MarketTransaction subscriber : MARKET_TRANSACTION.dispatch()) {
+                subscriber.onMarketTransaction(transaction);
+            }
+        }
+
+        @Override
+        public void reportSubmarketCargoAndShipsUpdated(SubmarketAPI submarket) {
+            for (SubmarketUpdated subscriber : SUBMARKET_UPDATED.dispatch()) {
+                subscriber.onSubmarketUpdated(submarket);
+            }
+        }
+
+        @Override
+        public void reportColonySizeChanged(MarketAPI market, int prevSize) {
+            for (ColonySizeChanged subscriber : COLONY_SIZE_CHANGED.dispatch()) {
+                subscriber.onColonySizeChanged(market, prevSize);
+            }
+        }
+
+        @Override
+        public void reportAboutToOpenCoreTab(CoreUITabId tab, Object param) {
+            for (CoreTabOpened subscriber : CORE_TAB_OPENED.dispatch()) {
+                subscriber.onCoreTabOpened(tab);
+            }
+        }
+    }
+
+    /**
+     * Economy, reputation and fleet events from the campaign event listeners.
+     *
+     * Kept apart from ColonyEvents: campaign event listeners also receive market open and
+     * close events, and one object registered both ways would dispatch those twice.
+     */
+    private static class CampaignEvents extends BaseCampaignEventListener {
+        CampaignEvents() {
+            super(false);
+        }
+
+        @Override
+        public void reportEconomyTick(int iterIndex) {
+            for (EconomyTick subscriber : ECONOMY_TICK.dispatch()) {
+                subscriber.onEconomyTick(iterIndex);
+            }
+        }
+
+        @Override
+        public void reportEconomyMonthEnd() {
+            for (EconomyMonthEnd subscriber : ECONOMY_MONTH_END.dispatch()) {
+                subscriber.onEconomyMonthEnd();
+            }
+        }
+
+        @Override
+        public void reportPlayerReputationChange(String faction, float delta) {
+            for (ReputationChanged subscriber : REPUTATION_CHANGED.dispatch()) {
+                subscriber.onReputationChanged(faction, delta);
+            }
+        }
+
+        @Override
+        public void reportBattleOccurred(CampaignFleetAPI primaryWinner, BattleAPI battle) {
+            for (BattleOccurred subscriber : BATTLE_OCCURRED.dispatch()) {
+                subscriber.onBattleOccurred(primaryWinner, battle);
+            }
+        }
+
+        @Override
+        public void reportFleetDespawned(CampaignFleetAPI fleet, FleetDespawnReason reason, Object param) {
+            for (FleetDespawned subscriber : FLEET_DESPAWNED.dispatch()) {
+                subscriber.onFleetDespawned(fleet, reason, param);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package harshsector.core;
+
+/**
+ * Describes one Harsh Sector feature to the {@link FeatureRegistry}.
+ *
+ * Descriptors are declared in HarshSectorModPlugin as small anonymous classes. The feature's
+ * own classes must only be referenced from {@link #register()} - the JVM loads classes on
+ * first use, so a disabled feature's classes are never loaded and its listeners never added.
+ * For the same reason, {@link #isEnabled()} should read setting keys declared alongside the
+ * descriptor rather than calling into the feature.
+ */
+public abstract class FeatureDescriptor {
+
+    private final String id;
+    private final String name;
+
+    protected FeatureDescriptor(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the feature should be registered for this game.
+     */
+    public abstract boolean isEnabled();
+
+    /**
+     * Register the feature's plugins, listeners and scripts.
+     */
+    public abstract void register();
+}
@@ -0,0 +1,148 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.Global;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Level-guarded, rate-limited logging for Harsh Sector features.
+ *
+ * Each feature declares one verbosity setting (see LunaSettings.csv) and hands it to the
+ * loggers of its classes. Callers guard anything that builds a message:
+ *
+ *   if (log.isDebugEnabled()) {
+ *       log.debug("Releasing " + member.getShipName());
+ *   }
+ *
+ * so string building is skipped entirely when the level is off. Messages that can repeat
+ * (per swap, per click) go through {@link #allow(String)} to log at most once per interval.
+ *
+ * When the in-memory buffer is enabled, debug messages below the configured level are kept
+ * in a small ring buffer instead of being written to starsector.log, and can be written out
+ * with {@link #dumpBuffer()} (e.g. from the console: runcode harshsector.core.FeatureLog.dumpBuffer()).
+ */
+public class FeatureLog {
+
+    public static final int OFF = 0;
+    public static final int WARN = 1;
+    public static final int INFO = 2;
+    public static final int DEBUG = 3;
+
+    // Rate-limited messages log at most once per this many milliseconds per key
+    private static final long RATE_LIMIT_MS = 10000L;
+
+    private static final Settings.BooleanKey BUFFER_ENABLED =
+        Settings.booleanKey("harshsector_log_buffer", false);
+
+    // Shared ring buffer of recent debug messages across all features
+    private static final int BUFFER_SIZE = 256;
+    private static final String[] buffer = new String[BUFFER_SIZE];
+    private static int bufferNext = 0;
+    private static int bufferCount = 0;
+
+    private static final Logger bufferLog = Global.getLogger(FeatureLog.class);
+
+    private final Logger log;
+    private final Settings.IntKey level;
+
+    // Per-key rate limit state: [last logged time ms, messages suppressed since]
+    private final Map<String, long[]> rateLimits = new HashMap<String, long[]>();
+
+    private FeatureLog(Class<?> owner, Settings.IntKey level) {
+        this.log = Global.getLogger(owner);
+        this.level = level;
+    }
+
+    /**
+     * Create a logger for a class, with verbosity taken from its feature's level setting.
+     */
+    public static FeatureLog get(Class<?> owner, Settings.IntKey level) {
+        return new FeatureLog(owner, level);
+    }
+
+    public boolean isWarnEnabled() {
+        return level.get() >= WARN;
+    }
+
+    public boolean isInfoEnabled() {
+        return level.get() >= INFO;
+    }
+
+    /**
+     * True if debug messages go anywhere - the log or the in-memory buffer.
+     */
+    public boolean isDebugEnabled() {
+        return level.get() >= DEBUG || BUFFER_ENABLED.get();
+    }
+
+    public void warn(String message) {
+        if (isWarnEnabled()) log.warn(message);
+    }
+
+    public void warn(String message, Throwable t) {
+        if (isWarnEnabled()) log.warn(message, t);
+    }
+
+    public void info(String message) {
+        if (isInfoEnabled()) log.info(message);
+    }
+
+    public void debug(String message) {
+        if (level.get() >= DEBUG) {
+            // Written at INFO - starsector.log drops log4j DEBUG output
+            log.info(message);
+        } else if (BUFFER_ENABLED.get()) {
+            record(message);
+        }
+    }
+
+    /**
+     * Rate limit check for a repeating message.
+     * Returns true at most once per interval for each key; callers log only when it does.
+     *
+     *   if (log.isInfoEnabled() && log.allow("swap")) { ... }
+     */
+    public boolean allow(String key) {
+        long now = System.currentTimeMillis();
+        long[] state = rateLimits.get(key);
+        if (state == null) {
+            rateLimits.put(key, new long[] { now, 0L });
+            return true;
+        }
+        if (now - state[0] >= RATE_LIMIT_MS) {
+            if (state[1] > 0) {
+                log.info("(" + state[1] + " similar '" + key + "' messages suppressed)");
+            }
+            state[0] = now;
+            state[1] = 0L;
+            return true;
+        }
+        state[1]++;
+        return false;
+    }
+
+    private static synchronized void record(String message) {
+        buffer[bufferNext] = message;
+        bufferNext = (bufferNext + 1) % BUFFER_SIZE;
+        if (bufferCount < BUFFER_SIZE) {
+            bufferCount++;
+        }
+    }
+
+    /**
+     * Write the buffered debug messages to starsector.log, oldest first, and clear the buffer.
+     */
+    public static synchronized void dumpBuffer() {
+        bufferLog.info("Harsh Sector: Dumping " + bufferCount + " buffered log messages");
+        int start = (bufferNext - bufferCount + BUFFER_SIZE) % BUFFER_SIZE;
+        for (int i = 0; i < bufferCount; i++) {
+            int slot = (start + i) % BUFFER_SIZE;
+            bufferLog.info(buffer[slot]);
+            buffer[slot] = null;
+        }
+        bufferNext = 0;
+        bufferCount = 0;
+    }
+}
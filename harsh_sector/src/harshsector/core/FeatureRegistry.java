@@ -0,0 +1,56 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.Global;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers enabled features on game load and reports how long each one took.
+ *
+ * Disabled features are skipped without touching their classes (see {@link FeatureDescriptor}).
+ * Settings are read on each load, so enabling a feature in the LunaLib menu takes effect the
+ * next time a save is loaded.
+ */
+public class FeatureRegistry {
+
+    private static final Logger log = Global.getLogger(FeatureRegistry.class);
+
+    private final List<FeatureDescriptor> features = new ArrayList<FeatureDescriptor>();
+
+    public void add(FeatureDescriptor feature) {
+        features.add(feature);
+    }
+
+    /**
+     * Register every enabled feature, timing each registration.
+     */
+    public void registerEnabled() {
+        long totalNanos = 0L;
+        int registered = 0;
+
+        for (FeatureDescriptor feature : features) {
+            if (!feature.isEnabled()) {
+                log.info("Harsh Sector: " + feature.getName() + " disabled, not loaded");
+                continue;
+            }
+
+            long start = System.nanoTime();
+            feature.register();
+            long nanos = System.nanoTime() - start;
+
+            Metrics.histogram("feature." + feature.getId() + ".register.ns").record(nanos);
+            totalNanos += nanos;
+            registered++;
+            log.info("Harsh Sector: Registered " + feature.getName() + " in " + formatMillis(nanos) + " ms");
+        }
+
+        log.info("Harsh Sector: " + registered + "/" + features.size() + " features registered in " +
+                 formatMillis(totalNanos) + " ms");
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.2f", nanos / 1000000.0);
+    }
+}
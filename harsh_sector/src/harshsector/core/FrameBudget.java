@@ -0,0 +1,185 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import org.apache.log4j.Logger;
+
+/**
+ * Per-frame time budget shared by Harsh Sector's campaign scripts, and one for combat.
+ *
+ * Scripts time their own work against the budget for the current frame and stop when it
+ * runs out, leaving the rest for the next frame:
+ *
+ *   long start = FrameBudget.CAMPAIGN.start();
+ *   while (hasWork()) {
+ *       doOneUnit();
+ *       if (!FrameBudget.CAMPAIGN.hasTime(start)) {
+ *           FrameBudget.CAMPAIGN.defer();
+ *           break;
+ *       }
+ *   }
+ *   FrameBudget.CAMPAIGN.end(start);
+ *
+ * Work that must happen on time - TacticalRetreatPlugin releasing a due wave of enemy
+ * reinforcements - is never deferred: it runs outside start()/end() and isn't charged to the
+ * budget.
+ *
+ * After a frame that went over budget or deferred work, the budget reports
+ * {@link #isDegraded()} for a short while so optional work (status text refreshes) can be
+ * done less often. Throttling is counted in Metrics as budget.campaign.* / budget.combat.*
+ * and logged at most once a minute - at INFO, or at WARN once it has hit several frames since
+ * the last report, since a single slow frame (a GC pause, loading a save) is normal.
+ *
+ * The campaign frame starts with a transient script added by {@link #register()}, before
+ * any feature scripts. The combat frame is started by TacticalRetreatPlugin.
+ */
+public class FrameBudget {
+
+    private static final Logger log = Global.getLogger(FrameBudget.class);
+
+    // Microseconds of Harsh Sector work allowed per frame; 0 = unlimited
+    private static final Settings.IntKey BUDGET_MICROS = Settings.intKey("harshsector_frame_budget_us", 1000);
+
+    // Frames to stay degraded after going over budget (about half a second at 60fps)
+    private static final int RECOVERY_FRAMES = 30;
+
+    private static final long REPORT_INTERVAL_MS = 60000L;
+
+    // Throttled frames since the last report before throttling is worth a WARN
+    private static final long WARN_THROTTLED_FRAMES = 10L;
+
+    public static final FrameBudget CAMPAIGN = new FrameBudget("campaign");
+    public static final FrameBudget COMBAT = new FrameBudget("combat");
+
+    private final String name;
+    private final Metrics.Histogram frameNanos;
+    private final Metrics.Counter throttledFrames;
+    private final Metrics.Counter deferrals;
+
+    private long budgetNanos;
+    private long spent = 0L;
+    private boolean deferredThisFrame = false;
+    private int degradedFrames = 0;
+    private long lastReport = 0L;
+    private long throttledSinceReport = 0L;
+
+    private FrameBudget(String name) {
+        this.name = name;
+        this.frameNanos = Metrics.histogram("budget." + name + ".frame.ns");
+        this.throttledFrames = Metrics.counter("budget." + name + ".throttled_frames");
+        this.deferrals = Metrics.counter("budget." + name + ".deferrals");
+    }
+
+    /**
+     * Start campaign frames for the loaded game. Call before registering feature scripts.
+     */
+    public static void register() {
+        CAMPAIGN.reset();
+        Global.getSector().addTransientScript(new CampaignFrameStart());
+    }
+
+    private void reset() {
+        spent = 0L;
+        deferredThisFrame = false;
+        degradedFrames = 0;
+    }
+
+    /**
+     * Close the previous frame and start a new one.
+     */
+    public void beginFrame() {
+        if (spent > 0L) {
+            frameNanos.record(spent);
+        }
+
+        boolean throttled = deferredThisFrame || (budgetNanos > 0L && spent > budgetNanos);
+        if (throttled) {
+            throttledFrames.increment();
+            degradedFrames = RECOVERY_FRAMES;
+            report();
+        } else if (degradedFrames > 0) {
+            degradedFrames--;
+        }
+
+        spent = 0L;
+        deferredThisFrame = false;
+        budgetNanos = BUDGET_MICROS.get() * 1000L;
+    }
+
+    /**
+     * Start timing a piece of work. Pass the result to {@link #hasTime(long)} and {@link #end(long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Charge the work started at the given time to this frame.
+     *
+     * @return Nanoseconds the work took
+     */
+    public long end(long start) {
+        long elapsed = System.nanoTime() - start;
+        spent += elapsed;
+        return elapsed;
+    }
+
+    /**
+     * True if there's budget left this frame, counting the work in progress since start.
+     */
+    public boolean hasTime(long start) {
+        return budgetNanos <= 0L || spent + (System.nanoTime() - start) < budgetNanos;
+    }
+
+    /**
+     * Record that work was postponed to a later frame because the budget ran out.
+     */
+    public void defer() {
+        deferrals.increment();
+        deferredThisFrame = true;
+    }
+
+    /**
+     * True shortly after a frame went over budget - skip or slow down optional work.
+     */
+    public boolean isDegraded() {
+        return degradedFrames > 0;
+    }
+
+    private void report() {
+        throttledSinceReport++;
+        long now = System.currentTimeMillis();
+        if (lastReport != 0L && now - lastReport < REPORT_INTERVAL_MS) return;
+
+        String message = "Harsh Sector: " + name + " work exceeded the " + (budgetNanos / 1000L) +
+                         "us frame budget, deferring work to later frames (" + throttledSinceReport +
+                         " frames throttled since last report)";
+        if (throttledSinceReport >= WARN_THROTTLED_FRAMES) {
+            log.warn(message);
+        } else {
+            log.info(message);
+        }
+        lastReport = now;
+        throttledSinceReport = 0L;
+    }
+
+    /**
+     * Starts each campaign frame. Runs while paused, like the scripts it budgets.
+     */
+    private static class CampaignFrameStart implements EveryFrameScript {
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public boolean runWhilePaused() {
+            return true;
+        }
+
+        @Override
+        public void advance(float amount) {
+            CAMPAIGN.beginFrame();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.Global;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime counters and timers shared by all Harsh Sector features.
+ *
+ * Features look up their metrics once (usually into static final fields) and update them
+ * on the game thread. Updates are plain primitive increments - no boxing, no locking - so
+ * counters and histograms are game-thread only: updating one from another thread loses
+ * counts. Code that runs on worker threads (RetreatBalanceSimulator's fork-join tasks)
+ * must not reach any metric, directly or through Settings and FeatureLog.
+ *
+ *   private static final Metrics.Counter SWAPS = Metrics.counter("stealthmarket.swaps");
+ *   private static final Metrics.Histogram ADVANCE = Metrics.histogram("retreat.advance.ns");
+ *
+ * A snapshot of everything can be written as CSV to saves/common with {@link #dump()},
+ * either from the console (runcode harshsector.core.Metrics.dump()) or automatically
+ * before each game save when harshsector_metrics_on_save is enabled.
+ */
+public class Metrics {
+
+    private static final Logger log = Global.getLogger(Metrics.class);
+
+    public static final String DUMP_FILE = "harsh_sector_metrics.csv";
+
+    private static final Map<String, Counter> counters = new HashMap<String, Counter>();
+    private static final Map<String, Histogram> histograms = new HashMap<String, Histogram>();
+    private static final List<String> order = new ArrayList<String>();
+
+    /**
+     * Get or create a counter. Call once and keep the handle.
+     */
+    public static synchronized Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            counters.put(name, counter);
+            order.add(name);
+        }
+        return counter;
+    }
+
+    /**
+     * Get or create a histogram. Call once and keep the handle.
+     */
+    public static synchronized Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(name, histogram);
+            order.add(name);
+        }
+        return histogram;
+    }
+
+    /**
+     * Render every metric as CSV, in the order they were created.
+     */
+    public static synchronized String toCsv() {
+        StringBuilder csv = new StringBuilder("name,type,count,sum,p50,p99,max\n");
+        for (String name : order) {
+            Counter counter = counters.get(name);
+            if (counter != null) {
+                csv.append(name).append(",counter,").append(counter.get()).append(",,,,\n");
+                continue;
+            }
+            Histogram h = histograms.get(name);
+            csv.append(name).append(",histogram,")
+               .append(h.getCount()).append(',')
+               .append(h.getSum()).append(',')
+               .append(h.getPercentile(0.50)).append(',')
+               .append(h.getPercentile(0.99)).append(',')
+               .append(h.getMax()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Write a CSV snapshot of all metrics to saves/common.
+     */
+    public static void dump() {
+        try {
+            Global.getSettings().writeTextFileToCommon(DUMP_FILE, toCsv());
+            log.info("Harsh Sector: Metrics written to saves/common/" + DUMP_FILE);
+        } catch (Exception e) {
+            log.warn("Harsh Sector: Could not write metrics (" + e + ")");
+        }
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static final class Counter {
+        private long count;
+
+        private Counter() {
+        }
+
+        public void increment() {
+            count++;
+        }
+
+        public void add(long amount) {
+            count += amount;
+        }
+
+        public long get() {
+            return count;
+        }
+    }
+
+    /**
+     * Distribution of non-negative values (typically nanoseconds) in power-of-two buckets.
+     * Bucket i holds values in [2^(i-1), 2^i), so percentiles are accurate to within 2x.
+     */
+    public static final class Histogram {
+        private final long[] buckets = new long[65];
+        private long count;
+        private long sum;
+        private long max;
+
+        private Histogram() {
+        }
+
+        public void record(long value) {
+            if (value < 0) value = 0;
+            buckets[64 - Long.numberOfLeadingZeros(value)]++;
+            count++;
+            sum += value;
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Upper bound of the bucket containing the given percentile (0..1), capped at the max seen.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) return 0L;
+            long target = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target && seen > 0) {
+                    long upper = i == 0 ? 0L : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+    }
+}
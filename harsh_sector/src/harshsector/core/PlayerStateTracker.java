@@ -0,0 +1,114 @@
+package harshsector.core;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignClockAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+
+/**
+ * Tracks player state that features query often, so they don't walk the sector on every query.
+ *
+ * Samples the player fleet's transponder once per campaign frame and publishes the cached
+ * state plus the campaign timestamp of the last transition. Submarket plugins and stealth
+ * rules read from here instead of calling Global.getSector().getPlayerFleet() per UI refresh.
+ *
+ * Registered as a transient script on each game load by HarshSectorModPlugin.
+ */
+public class PlayerStateTracker implements EveryFrameScript {
+
+    private static boolean sampled = false;
+    private static boolean transponderOn = true;
+    private static long transponderChangedAt = 0L;
+    private static int transponderTransitions = 0;
+
+    /**
+     * Reset tracked state and start sampling for the loaded game.
+     */
+    public static void register() {
+        sampled = false;
+        transponderOn = true;
+        transponderChangedAt = 0L;
+        transponderTransitions = 0;
+
+        Global.getSector().addTransientScript(new PlayerStateTracker());
+        sample();
+    }
+
+    /**
+     * Read the player fleet's current state and record any transition.
+     * Called every frame by the script; can also be called before a read that
+     * must not be one frame stale (e.g. when the player opens a market).
+     */
+    public static void sample() {
+        CampaignFleetAPI playerFleet = Global.getSector().getPlayerFleet();
+        if (playerFleet == null) return;
+
+        boolean on = playerFleet.isTransponderOn();
+        if (!sampled) {
+            // First sample after load - we don't know when it last changed, so start the clock now
+            sampled = true;
+            transponderOn = on;
+            transponderChangedAt = currentTimestamp();
+        } else if (on != transponderOn) {
+            transponderOn = on;
+            transponderChangedAt = currentTimestamp();
+            transponderTransitions++;
+        }
+    }
+
+    private static long currentTimestamp() {
+        CampaignClockAPI clock = Global.getSector().getClock();
+        return clock != null ? clock.getTimestamp() : 0L;
+    }
+
+    /**
+     * Whether the player's transponder is on, as of the last sample.
+     */
+    public static boolean isTransponderOn() {
+        if (!sampled) {
+            sample();
+        }
+        return transponderOn;
+    }
+
+    /**
+     * Campaign timestamp of the last transponder transition (or of the first sample after load).
+     */
+    public static long getTransponderChangedAt() {
+        return transponderChangedAt;
+    }
+
+    /**
+     * Number of transponder transitions seen since load.
+     * Changes exactly when the transponder state does - usable as a cache version.
+     */
+    public static int getTransponderTransitions() {
+        return transponderTransitions;
+    }
+
+    /**
+     * Campaign days the transponder has been off, or 0 if it's on.
+     */
+    public static float getDaysSinceTransponderOff() {
+        if (transponderOn) return 0f;
+        return Global.getSector().getClock().getElapsedDaysSince(transponderChangedAt);
+    }
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
+    @Override
+    public boolean runWhilePaused() {
+        // The transponder can be toggled while paused
+        return true;
+    }
+
+    @Override
+    public void advance(float amount) {
+        long start = FrameBudget.CAMPAIGN.start();
+        sample();
+        FrameBudget.CAMPAIGN.end(start);
+    }
+}
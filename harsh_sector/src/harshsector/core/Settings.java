@@ -3,14 +3,29 @@ package harshsector.core;
 import com.fs.starfarer.api.Global;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Shared settings utilities for Harsh Sector with soft dependency on LunaLib.
  *
  * If LunaLib is installed: reads settings from in-game menu (F2)
  * If LunaLib is not installed: returns sensible defaults
  *
- * Individual features should define their own setting IDs and defaults,
- * then use these utility methods to read them.
+ * Individual features define their own setting IDs and defaults as typed keys:
+ *
+ *   private static final Settings.BooleanKey ENABLED = Settings.booleanKey("harshsector_x", true);
+ *   ...
+ *   return ENABLED.get();
+ *
+ * All registered keys are compiled into one immutable {@link Snapshot} of primitive arrays.
+ * Reading a key is a single volatile read plus an array index - LunaLib is only consulted
+ * when the snapshot is (re)built, which happens on first use and whenever LunaLib reports
+ * that our settings changed.
  */
 public class Settings {
 
@@ -21,6 +36,20 @@ public class Settings {
     // Cache LunaLib availability (doesn't change during runtime)
     private static Boolean lunaLibAvailable = null;
 
+    // Registered keys, in registration order (index into the matching snapshot array)
+    private static final List<BooleanKey> booleanKeys = new ArrayList<BooleanKey>();
+    private static final List<FloatKey> floatKeys = new ArrayList<FloatKey>();
+    private static final List<IntKey> intKeys = new ArrayList<IntKey>();
+    private static final Map<String, Object> keysById = new HashMap<String, Object>();
+
+    // Fields we've already warned about (one warning per field, not per read)
+    private static final Set<String> warnedFields = new HashSet<String>();
+
+    private static volatile Snapshot snapshot = new Snapshot(new boolean[0], new float[0], new int[0]);
+
+    private static final Metrics.Counter READS = Metrics.counter("settings.reads");
+    private static final Metrics.Counter REBUILDS = Metrics.counter("settings.rebuilds");
+
     /**
      * Check if LunaLib is installed and enabled.
      */
@@ -37,50 +66,245 @@ public class Settings {
     }
 
     /**
-     * Get a boolean setting from LunaLib, or return default if unavailable.
+     * Declare a boolean setting. Declaring the same ID twice returns the same key.
+     */
+    public static synchronized BooleanKey booleanKey(String fieldId, boolean defaultValue) {
+        Object existing = keysById.get(fieldId);
+        if (existing instanceof BooleanKey) return (BooleanKey) existing;
+        checkUnused(fieldId, existing);
+
+        BooleanKey key = new BooleanKey(fieldId, defaultValue, booleanKeys.size());
+        booleanKeys.add(key);
+        keysById.put(fieldId, key);
+        return key;
+    }
+
+    /**
+     * Declare a float setting. Declaring the same ID twice returns the same key.
      */
-    public static boolean getBoolean(String fieldId, boolean defaultValue) {
-        if (!isLunaLibAvailable()) {
-            return defaultValue;
+    public static synchronized FloatKey floatKey(String fieldId, float defaultValue) {
+        Object existing = keysById.get(fieldId);
+        if (existing instanceof FloatKey) return (FloatKey) existing;
+        checkUnused(fieldId, existing);
+
+        FloatKey key = new FloatKey(fieldId, defaultValue, floatKeys.size());
+        floatKeys.add(key);
+        keysById.put(fieldId, key);
+        return key;
+    }
+
+    /**
+     * Declare an int setting. Declaring the same ID twice returns the same key.
+     */
+    public static synchronized IntKey intKey(String fieldId, int defaultValue) {
+        Object existing = keysById.get(fieldId);
+        if (existing instanceof IntKey) return (IntKey) existing;
+        checkUnused(fieldId, existing);
+
+        IntKey key = new IntKey(fieldId, defaultValue, intKeys.size());
+        intKeys.add(key);
+        keysById.put(fieldId, key);
+        return key;
+    }
+
+    private static void checkUnused(String fieldId, Object existing) {
+        if (existing != null) {
+            throw new IllegalArgumentException("Setting " + fieldId + " already declared as " +
+                                               existing.getClass().getSimpleName());
         }
+    }
 
-        try {
-            return LunaSettingsWrapper.getBoolean(MOD_ID, fieldId, defaultValue);
-        } catch (Exception e) {
-            log.warn("Harsh Sector: Error reading setting " + fieldId + ", using default", e);
-            return defaultValue;
+    /**
+     * Get the current settings snapshot.
+     * Use this when reading several keys at once so they all come from the same version.
+     */
+    public static Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (!current.covers()) {
+            current = rebuild();
         }
+        return current;
     }
 
     /**
-     * Get a float setting from LunaLib, or return default if unavailable.
+     * Re-read every declared key and publish a new snapshot.
+     * Called automatically on first use and when LunaLib reports a change.
      */
-    public static float getFloat(String fieldId, float defaultValue) {
-        if (!isLunaLibAvailable()) {
-            return defaultValue;
+    public static synchronized Snapshot rebuild() {
+        boolean[] booleans = new boolean[booleanKeys.size()];
+        float[] floats = new float[floatKeys.size()];
+        int[] ints = new int[intKeys.size()];
+
+        boolean luna = isLunaLibAvailable();
+        for (BooleanKey key : booleanKeys) {
+            booleans[key.index] = luna ? readBoolean(key) : key.defaultValue;
+        }
+        for (FloatKey key : floatKeys) {
+            floats[key.index] = luna ? readFloat(key) : key.defaultValue;
+        }
+        for (IntKey key : intKeys) {
+            ints[key.index] = luna ? readInt(key) : key.defaultValue;
+        }
+
+        if (luna) {
+            registerChangeListener();
+        }
+
+        Snapshot built = new Snapshot(booleans, floats, ints);
+        snapshot = built;
+        REBUILDS.increment();
+        return built;
+    }
+
+    private static boolean readBoolean(BooleanKey key) {
+        try {
+            return LunaSettingsWrapper.getBoolean(MOD_ID, key.id, key.defaultValue);
+        } catch (Throwable e) {
+            warnOnce(key.id, e);
+            return key.defaultValue;
         }
+    }
+
+    private static float readFloat(FloatKey key) {
+        try {
+            return LunaSettingsWrapper.getFloat(MOD_ID, key.id, key.defaultValue);
+        } catch (Throwable e) {
+            warnOnce(key.id, e);
+            return key.defaultValue;
+        }
+    }
+
+    private static int readInt(IntKey key) {
+        try {
+            return LunaSettingsWrapper.getInt(MOD_ID, key.id, key.defaultValue);
+        } catch (Throwable e) {
+            warnOnce(key.id, e);
+            return key.defaultValue;
+        }
+    }
+
+    private static void warnOnce(String fieldId, Throwable e) {
+        if (warnedFields.add(fieldId)) {
+            log.warn("Harsh Sector: Error reading setting " + fieldId + ", using default (" + e + ")");
+        }
+    }
+
+    private static boolean listenerRegistered = false;
 
+    private static void registerChangeListener() {
+        if (listenerRegistered) return;
+        listenerRegistered = true;
         try {
-            return LunaSettingsWrapper.getFloat(MOD_ID, fieldId, defaultValue);
-        } catch (Exception e) {
-            log.warn("Harsh Sector: Error reading setting " + fieldId + ", using default", e);
-            return defaultValue;
+            LunaSettingsWrapper.addChangeListener();
+        } catch (Throwable e) {
+            log.warn("Harsh Sector: Could not register LunaLib settings listener (" + e + ")");
         }
     }
 
     /**
-     * Get an int setting from LunaLib, or return default if unavailable.
+     * Immutable, primitive-typed view of every declared setting.
+     * Every read - through a snapshot or a key's get() - is counted here as settings.reads.
      */
-    public static int getInt(String fieldId, int defaultValue) {
-        if (!isLunaLibAvailable()) {
-            return defaultValue;
+    public static final class Snapshot {
+        private final boolean[] booleans;
+        private final float[] floats;
+        private final int[] ints;
+
+        private Snapshot(boolean[] booleans, float[] floats, int[] ints) {
+            this.booleans = booleans;
+            this.floats = floats;
+            this.ints = ints;
         }
 
-        try {
-            return LunaSettingsWrapper.getInt(MOD_ID, fieldId, defaultValue);
-        } catch (Exception e) {
-            log.warn("Harsh Sector: Error reading setting " + fieldId + ", using default", e);
-            return defaultValue;
+        public boolean get(BooleanKey key) {
+            READS.increment();
+            return key.index < booleans.length ? booleans[key.index] : Settings.snapshot().booleans[key.index];
+        }
+
+        public float get(FloatKey key) {
+            READS.increment();
+            return key.index < floats.length ? floats[key.index] : Settings.snapshot().floats[key.index];
+        }
+
+        public int get(IntKey key) {
+            READS.increment();
+            return key.index < ints.length ? ints[key.index] : Settings.snapshot().ints[key.index];
+        }
+
+        // True if every key declared so far has a slot in this snapshot
+        private boolean covers() {
+            return booleans.length == booleanKeys.size()
+                && floats.length == floatKeys.size()
+                && ints.length == intKeys.size();
+        }
+    }
+
+    /**
+     * A declared boolean setting.
+     */
+    public static final class BooleanKey {
+        private final String id;
+        private final boolean defaultValue;
+        private final int index;
+
+        private BooleanKey(String id, boolean defaultValue, int index) {
+            this.id = id;
+            this.defaultValue = defaultValue;
+            this.index = index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean get() {
+            return snapshot.get(this);
+        }
+    }
+
+    /**
+     * A declared float setting.
+     */
+    public static final class FloatKey {
+        private final String id;
+        private final float defaultValue;
+        private final int index;
+
+        private FloatKey(String id, float defaultValue, int index) {
+            this.id = id;
+            this.defaultValue = defaultValue;
+            this.index = index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public float get() {
+            return snapshot.get(this);
+        }
+    }
+
+    /**
+     * A declared int setting.
+     */
+    public static final class IntKey {
+        private final String id;
+        private final int defaultValue;
+        private final int index;
+
+        private IntKey(String id, int defaultValue, int index) {
+            this.id = id;
+            this.defaultValue = defaultValue;
+            this.index = index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int get() {
+            return snapshot.get(this);
         }
     }
 
@@ -103,5 +327,25 @@ public class Settings {
             Integer value = lunalib.lunaSettings.LunaSettings.getInt(modId, fieldId);
             return value != null ? value : defaultValue;
         }
+
+        static void addChangeListener() {
+            // LunaLib keeps listeners for the whole session, so only add ours once
+            if (!lunalib.lunaSettings.LunaSettings.hasSettingsListenerOfClass(ChangeListener.class)) {
+                lunalib.lunaSettings.LunaSettings.addSettingsListener(new ChangeListener());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot when the player saves our settings in the LunaLib menu.
+     */
+    private static class ChangeListener implements lunalib.lunaSettings.LunaSettingsListener {
+        @Override
+        public void settingsChanged(String modID) {
+            if (MOD_ID.equals(modID)) {
+                log.info("Harsh Sector: Settings changed, rebuilding snapshot");
+                rebuild();
+            }
+        }
     }
 }
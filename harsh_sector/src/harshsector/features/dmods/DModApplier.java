@@ -0,0 +1,119 @@
+package harshsector.features.dmods;
+
+import com.fs.starfarer.api.campaign.CargoAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import com.fs.starfarer.api.combat.ShipVariantAPI;
+import com.fs.starfarer.api.combat.VariantSource;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import com.fs.starfarer.api.impl.campaign.DModManager;
+import com.fs.starfarer.api.impl.campaign.ids.Submarkets;
+import com.fs.starfarer.api.loading.HullModSpecAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+
+import java.util.Random;
+
+/**
+ * Adds D-mods to the ships of a submarket, a whole submarket at a time.
+ *
+ * Each ship is handled once: its variant is tagged on the first pass, and the tag is saved
+ * with the ship, so a submarket that's opened again, swept again or loaded from a save only
+ * pays one tag check per ship it has already seen - and ships never get a second roll. A
+ * new ship gets a random target between the minimum and maximum, counting the D-mods it
+ * already has, and the missing ones are picked from DModCandidates without building any
+ * per-ship lists.
+ *
+ * Storage and local resources hold the player's own ships and are never touched.
+ */
+class DModApplier {
+
+    private static final FeatureLog log = DModsFeature.getLog(DModApplier.class);
+
+    private static final Metrics.Counter SHIPS_DAMAGED = Metrics.counter("dmods.ships_damaged");
+    private static final Metrics.Counter DMODS_ADDED = Metrics.counter("dmods.added");
+
+    private static final Random random = new Random();
+
+    // Variant tag of ships already handled, kept in the save
+    private static final String HANDLED_TAG = "harshsector_dmods_handled";
+
+    // Scratch copy of a candidate array, partially shuffled while picking
+    private static HullModSpecAPI[] picks = new HullModSpecAPI[0];
+
+    /**
+     * Add D-mods to every ship in a submarket that hasn't been handled yet.
+     *
+     * @return Number of ships that got D-mods
+     */
+    static int apply(SubmarketAPI submarket) {
+        String specId = submarket.getSpecId();
+        if (Submarkets.SUBMARKET_STORAGE.equals(specId) || Submarkets.LOCAL_RESOURCES.equals(specId)) return 0;
+
+        CargoAPI cargo = submarket.getCargo();
+        if (cargo == null || cargo.getMothballedShips() == null) return 0;
+
+        int min = DModsFeature.getMinDMods();
+        int max = DModsFeature.getMaxDMods();
+        if (max <= 0) return 0;
+
+        int damaged = 0;
+        for (FleetMemberAPI member : cargo.getMothballedShips().getMembersListCopy()) {
+            if (member.isFighterWing() || member.getVariant().hasTag(HANDLED_TAG)) continue;
+
+            // Stock variants are shared between ships - tag and damage a copy
+            ShipVariantAPI variant = member.getVariant().clone();
+            variant.setSource(VariantSource.REFIT);
+            variant.addTag(HANDLED_TAG);
+
+            int added = damage(variant, min + random.nextInt(max - min + 1));
+            member.setVariant(variant, false, true);
+            if (added > 0) {
+                DMODS_ADDED.add(added);
+                damaged++;
+            }
+        }
+
+        SHIPS_DAMAGED.add(damaged);
+        if (damaged > 0 && log.isDebugEnabled()) {
+            log.debug("DModApplier: Added D-mods to " + damaged + " ships in " +
+                      submarket.getNameOneLine() + " at " + submarket.getMarket().getName());
+        }
+        return damaged;
+    }
+
+    /**
+     * Add D-mods to a variant until it has the target number, if it suits that many.
+     *
+     * @return Number of D-mods added
+     */
+    private static int damage(ShipVariantAPI variant, int target) {
+        int missing = target - DModManager.getNumDMods(variant);
+        if (missing <= 0) return 0;
+
+        HullModSpecAPI[] candidates = DModCandidates.get(variant);
+        if (candidates.length == 0) return 0;
+
+        int count = candidates.length;
+        if (picks.length < count) {
+            picks = new HullModSpecAPI[count];
+        }
+        System.arraycopy(candidates, 0, picks, 0, count);
+
+        int added = 0;
+        for (int i = 0; i < count && added < missing; i++) {
+            int j = i + random.nextInt(count - i);
+            HullModSpecAPI pick = picks[j];
+            picks[j] = picks[i];
+            picks[i] = pick;
+
+            if (!variant.hasHullMod(pick.getId())) {
+                variant.addPermaMod(pick.getId(), false);
+                added++;
+            }
+        }
+        if (added > 0) {
+            DModManager.setDHull(variant);
+        }
+        return added;
+    }
+}
@@ -0,0 +1,74 @@
+package harshsector.features.dmods;
+
+import com.fs.starfarer.api.combat.ShipVariantAPI;
+import com.fs.starfarer.api.impl.campaign.DModManager;
+import com.fs.starfarer.api.impl.campaign.ids.Tags;
+import com.fs.starfarer.api.loading.HullModSpecAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The D-mods that suit each hull and variant, computed once per game load.
+ *
+ * Finding them means filtering every damage hullmod through DModManager.removeUnsuitedMods,
+ * which checks shields, fighter bays, phase cloaks and so on. Market stock is mostly the
+ * same few stock variants, so the filtered set is cached per hull and variant ID and each
+ * later ship of that variant gets it with one map lookup.
+ *
+ * Mods a ship already has aren't removed here - they differ between ships of the same
+ * variant - so callers skip those when picking.
+ */
+class DModCandidates {
+
+    private static final FeatureLog log = DModsFeature.getLog(DModCandidates.class);
+
+    private static final Metrics.Counter BUILDS = Metrics.counter("dmods.candidate_builds");
+
+    private static final HullModSpecAPI[] NONE = new HullModSpecAPI[0];
+
+    // Every D-mod a ship can get from normal damage, before filtering for a hull
+    private static List<HullModSpecAPI> allDamageMods;
+
+    private static final Map<String, HullModSpecAPI[]> candidates = new HashMap<String, HullModSpecAPI[]>();
+
+    static void clear() {
+        allDamageMods = null;
+        candidates.clear();
+    }
+
+    /**
+     * D-mods that suit a variant. The returned array is shared - don't modify it.
+     */
+    static HullModSpecAPI[] get(ShipVariantAPI variant) {
+        String key = variant.getHullSpec().getHullId() + "/" + variant.getHullVariantId();
+        HullModSpecAPI[] result = candidates.get(key);
+        if (result == null) {
+            result = compute(variant);
+            candidates.put(key, result);
+            BUILDS.increment();
+
+            if (log.isDebugEnabled()) {
+                log.debug("DModCandidates: " + result.length + " D-mods suit " + key);
+            }
+        }
+        return result;
+    }
+
+    private static HullModSpecAPI[] compute(ShipVariantAPI variant) {
+        if (allDamageMods == null) {
+            allDamageMods = DModManager.getModsWithTags(Tags.HULLMOD_DAMAGE);
+            if (allDamageMods == null) {
+                allDamageMods = new ArrayList<HullModSpecAPI>();
+            }
+        }
+
+        List<HullModSpecAPI> suited = new ArrayList<HullModSpecAPI>(allDamageMods);
+        DModManager.removeUnsuitedMods(variant, suited);
+        return suited.isEmpty() ? NONE : suited.toArray(new HullModSpecAPI[suited.size()]);
+    }
+}
@@ -0,0 +1,44 @@
+package harshsector.features.dmods;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureLog;
+
+/**
+ * Adds D-mods to market stock when it changes.
+ *
+ * A submarket restocks when the player opens it, and this listener damages its new ships
+ * in the same pass, before the trade screen shows them. At the end of each economy month
+ * it also starts a DModSweeper for stock that changed without the player looking, unless
+ * one is still running.
+ */
+public class DModRestockListener implements EventDispatcher.SubmarketUpdated, EventDispatcher.EconomyMonthEnd {
+
+    private static final FeatureLog log = DModsFeature.getLog(DModRestockListener.class);
+
+    /**
+     * Subscribe to submarket restocks and month ends for this game.
+     * Called from DModsFeature.register()
+     */
+    public static void register() {
+        DModRestockListener listener = new DModRestockListener();
+        EventDispatcher.SUBMARKET_UPDATED.subscribe(listener);
+        EventDispatcher.ECONOMY_MONTH_END.subscribe(listener);
+        log.info("DModRestockListener subscribed");
+    }
+
+    @Override
+    public void onSubmarketUpdated(SubmarketAPI submarket) {
+        DModApplier.apply(submarket);
+    }
+
+    @Override
+    public void onEconomyMonthEnd() {
+        if (Global.getSector().hasTransientScript(DModSweeper.class)) {
+            log.info("DModRestockListener: Previous sweep still running, skipping");
+            return;
+        }
+        Global.getSector().addTransientScript(new DModSweeper());
+    }
+}
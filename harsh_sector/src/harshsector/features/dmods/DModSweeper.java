@@ -0,0 +1,80 @@
+package harshsector.features.dmods;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.FrameBudget;
+import harshsector.core.Metrics;
+
+import java.util.List;
+
+/**
+ * Adds D-mods to the stock of every market in the economy in the background.
+ *
+ * Takes a snapshot of the economy's markets when it starts and runs every submarket of a
+ * few markets per campaign frame through DModApplier until it runs out, then removes
+ * itself. It stops early in a frame when the shared FrameBudget runs out, so a sweep over
+ * hundreds of markets is spread over as many frames as it needs.
+ *
+ * Started on load by DModsFeature and at each month end by DModRestockListener.
+ */
+public class DModSweeper implements EveryFrameScript {
+
+    private static final FeatureLog log = DModsFeature.getLog(DModSweeper.class);
+
+    // Markets swept per campaign frame - keeps each frame's share of the work small
+    private static final int MARKETS_PER_FRAME = 4;
+
+    private static final Metrics.Histogram ADVANCE_NANOS = Metrics.histogram("dmods.sweep.advance.ns");
+
+    private List<MarketAPI> markets;
+    private int next = 0;
+    private int damaged = 0;
+    private boolean done = false;
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean runWhilePaused() {
+        return false;
+    }
+
+    @Override
+    public void advance(float amount) {
+        if (done) return;
+
+        if (markets == null) {
+            markets = Global.getSector().getEconomy().getMarketsCopy();
+            if (log.isInfoEnabled()) {
+                log.info("DModSweeper: Sweeping " + markets.size() + " markets");
+            }
+        }
+
+        FrameBudget budget = FrameBudget.CAMPAIGN;
+        long start = budget.start();
+        int end = Math.min(next + MARKETS_PER_FRAME, markets.size());
+        while (next < end) {
+            for (SubmarketAPI submarket : markets.get(next++).getSubmarketsCopy()) {
+                damaged += DModApplier.apply(submarket);
+            }
+            if (next < end && !budget.hasTime(start)) {
+                budget.defer();
+                break;
+            }
+        }
+        ADVANCE_NANOS.record(budget.end(start));
+
+        if (next >= markets.size()) {
+            if (log.isInfoEnabled()) {
+                log.info("DModSweeper: Finished, added D-mods to " + damaged + " ships");
+            }
+            markets = null;
+            done = true;
+        }
+    }
+}
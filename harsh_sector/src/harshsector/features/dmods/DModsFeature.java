@@ -0,0 +1,77 @@
+package harshsector.features.dmods;
+
+import com.fs.starfarer.api.Global;
+import harshsector.core.FeatureLog;
+import harshsector.core.Settings;
+
+/**
+ * D-Mods Feature
+ *
+ * Ships for sale come with D-mods. Every ship in every market submarket - open, military,
+ * black market (including RegulatedBlackMarket) and modded submarkets - gets between the
+ * configured minimum and maximum number of D-mods, counting any it already has. Based on
+ * Starpocalypse's addDmodsToShipsInSubmarkets.
+ *
+ * Components:
+ * - DModCandidates: Cached D-mods that suit each hull and variant
+ * - DModApplier: Damages a submarket's ships in one pass, each ship only once (tagged in the save)
+ * - DModRestockListener: Applies D-mods when a submarket restocks, and starts a sweep at month end
+ * - DModSweeper: Background script that applies D-mods across the economy a few markets per frame
+ */
+public class DModsFeature {
+
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey ENABLED =
+        Settings.booleanKey("harshsector_dmods", false);
+    private static final Settings.IntKey MIN_DMODS =
+        Settings.intKey("harshsector_dmods_min", 2);
+    private static final Settings.IntKey MAX_DMODS =
+        Settings.intKey("harshsector_dmods_max", 4);
+    private static final Settings.IntKey LOG_LEVEL =
+        Settings.intKey("harshsector_log_dmods", FeatureLog.WARN);
+
+    private static final FeatureLog log = getLog(DModsFeature.class);
+
+    /**
+     * Register the D-mods feature with the game.
+     * Called from HarshSectorModPlugin.onGameLoad()
+     */
+    public static void register() {
+        log.info("Harsh Sector: Registering D-Mods feature");
+        DModCandidates.clear();
+        DModRestockListener.register();
+
+        // Stock from before the feature was enabled is damaged in the background - ships
+        // handled in an earlier session are tagged and skipped
+        Global.getSector().addTransientScript(new DModSweeper());
+    }
+
+    /**
+     * Create a logger for a class in this feature, using the feature's log level setting.
+     */
+    static FeatureLog getLog(Class<?> owner) {
+        return FeatureLog.get(owner, LOG_LEVEL);
+    }
+
+    /**
+     * Check if ships for sale get D-mods.
+     */
+    public static boolean isEnabled() {
+        return ENABLED.get();
+    }
+
+    /**
+     * Get the fewest D-mods a ship for sale may have.
+     */
+    public static int getMinDMods() {
+        return MIN_DMODS.get();
+    }
+
+    /**
+     * Get the most D-mods a ship for sale may have.
+     * Never less than the minimum, whatever the settings say.
+     */
+    public static int getMaxDMods() {
+        return Math.max(MIN_DMODS.get(), MAX_DMODS.get());
+    }
+}
@@ -0,0 +1,106 @@
+package harshsector.features.marketdefense;
+
+import com.fs.starfarer.api.Global;
+import harshsector.core.FeatureLog;
+import harshsector.core.Settings;
+
+/**
+ * Enhanced Market Defenses Feature
+ *
+ * Makes non-player markets harder to raid and invade. Their ground defenses and the size
+ * of the patrol fleets they launch are multiplied, more so for larger markets, and raider
+ * factions (pirates and the Luddic Path) get an extra ground defense bonus. Based on
+ * Starpocalypse's addGroundDefenses and addPatrolHqs, as stat modifiers rather than
+ * extra structures.
+ *
+ * Components:
+ * - MarketDefenses: Saved per-market multipliers, and the set of changed markets waiting
+ *   for them to be reapplied
+ * - MarketDefenseListener: Checks markets on visits and size changes, and a few per economy tick
+ *
+ * Turning the feature off removes its modifiers on the next load.
+ */
+public class MarketDefenseFeature {
+
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey ENABLED =
+        Settings.booleanKey("harshsector_market_defense", false);
+    private static final Settings.FloatKey GROUND_MULT =
+        Settings.floatKey("harshsector_defense_ground_mult", 1.5f);
+    private static final Settings.FloatKey PATROL_MULT =
+        Settings.floatKey("harshsector_defense_patrol_mult", 1.25f);
+    private static final Settings.FloatKey SIZE_BONUS =
+        Settings.floatKey("harshsector_defense_size_bonus", 0.1f);
+    private static final Settings.FloatKey RAIDER_BONUS =
+        Settings.floatKey("harshsector_defense_raider_bonus", 0.5f);
+    private static final Settings.IntKey LOG_LEVEL =
+        Settings.intKey("harshsector_log_marketdefense", FeatureLog.WARN);
+
+    private static final FeatureLog log = getLog(MarketDefenseFeature.class);
+
+    /**
+     * Register the market defense feature with the game.
+     * Called from HarshSectorModPlugin.onGameLoad() - also when the feature has been
+     * turned off but a save still has its modifiers, so they can be removed.
+     */
+    public static void register() {
+        if (!isEnabled()) {
+            log.info("Harsh Sector: Removing Enhanced Market Defenses modifiers");
+            MarketDefenses.removeAll();
+            return;
+        }
+
+        log.info("Harsh Sector: Registering Enhanced Market Defenses feature");
+        MarketDefenses.load();
+        MarketDefenseListener.register();
+    }
+
+    /**
+     * Create a logger for a class in this feature, using the feature's log level setting.
+     */
+    static FeatureLog getLog(Class<?> owner) {
+        return FeatureLog.get(owner, LOG_LEVEL);
+    }
+
+    /**
+     * Check if enhanced market defenses are enabled.
+     */
+    public static boolean isEnabled() {
+        return ENABLED.get();
+    }
+
+    /**
+     * Check if the loaded save still has modifiers from when the feature was enabled.
+     */
+    public static boolean hasSavedModifiers() {
+        return Global.getSector().getPersistentData().containsKey(MarketDefenses.DATA_KEY);
+    }
+
+    /**
+     * Get the ground defense multiplier for a size 3 market.
+     */
+    public static float getGroundDefenseMult() {
+        return GROUND_MULT.get();
+    }
+
+    /**
+     * Get the patrol fleet size multiplier for a size 3 market.
+     */
+    public static float getPatrolSizeMult() {
+        return PATROL_MULT.get();
+    }
+
+    /**
+     * Get the amount added to each multiplier per market size above 3.
+     */
+    public static float getSizeBonus() {
+        return SIZE_BONUS.get();
+    }
+
+    /**
+     * Get the amount added to the ground defense multiplier of pirate and Luddic Path markets.
+     */
+    public static float getRaiderBonus() {
+        return RAIDER_BONUS.get();
+    }
+}
@@ -0,0 +1,52 @@
+package harshsector.features.marketdefense;
+
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureLog;
+
+/**
+ * Feeds changed markets to MarketDefenses and reapplies their modifiers.
+ *
+ * A market that grows or shrinks, or that the player opens, is checked on its own right
+ * away, so its defenses are current while the player is there. Ownership changes aren't
+ * reported by the game, so each economy tick also checks the next few markets of a
+ * rotation over the economy - never the whole economy at once.
+ */
+public class MarketDefenseListener implements EventDispatcher.EconomyTick, EventDispatcher.MarketOpened,
+                                              EventDispatcher.ColonySizeChanged {
+
+    private static final FeatureLog log = MarketDefenseFeature.getLog(MarketDefenseListener.class);
+
+    /**
+     * Subscribe to economy ticks, market visits and market size changes for this game.
+     * Called from MarketDefenseFeature.register()
+     */
+    public static void register() {
+        MarketDefenseListener listener = new MarketDefenseListener();
+        EventDispatcher.ECONOMY_TICK.subscribe(listener);
+        EventDispatcher.MARKET_OPENED.subscribe(listener);
+        EventDispatcher.COLONY_SIZE_CHANGED.subscribe(listener);
+        log.info("MarketDefenseListener subscribed");
+    }
+
+    @Override
+    public void onEconomyTick(int iterIndex) {
+        MarketDefenses.checkNext();
+        int count = MarketDefenses.flush();
+        if (count > 0 && log.isInfoEnabled()) {
+            log.info("MarketDefenseListener: Updated " + count + " changed markets");
+        }
+    }
+
+    @Override
+    public void onMarketOpened(MarketAPI market) {
+        MarketDefenses.check(market);
+        MarketDefenses.flush();
+    }
+
+    @Override
+    public void onColonySizeChanged(MarketAPI market, int prevSize) {
+        MarketDefenses.check(market);
+        MarketDefenses.flush();
+    }
+}
@@ -0,0 +1,236 @@
+package harshsector.features.marketdefense;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.MutableMarketStatsAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Factions;
+import com.fs.starfarer.api.impl.campaign.ids.Stats;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies defense modifiers to markets, touching only the markets that changed.
+ *
+ * The multipliers applied to each market are kept in the sector's persistent data as plain
+ * values - market ID to {ground defenses, patrol size} - with the source key they were
+ * applied under, so a save never holds a class of this mod and the modifiers can be removed
+ * exactly even if a later version changes the key. Checking a market computes the
+ * multipliers the current settings give it (from its owner and size) and compares them
+ * with the saved ones; if they differ the market goes into the changed-market set.
+ * Flushing the set then removes each changed market's old modifiers and applies new ones;
+ * every other market is left alone.
+ *
+ * Every market is checked on load. After that, markets are checked when something that
+ * changes them is reported - the player opening one, or a market growing or shrinking -
+ * and ownership changes, which the game doesn't report, are caught by checking a few
+ * markets per economy tick in rotation.
+ *
+ * Player-owned markets get no modifiers, so a market the player takes over loses them on
+ * its next check.
+ */
+class MarketDefenses {
+
+    private static final FeatureLog log = MarketDefenseFeature.getLog(MarketDefenses.class);
+
+    private static final Metrics.Counter REAPPLIED = Metrics.counter("marketdefense.reapplied");
+
+    // Persistent data keys for the applied multipliers (must match HarshSectorModPlugin) and their source
+    static final String DATA_KEY = "harshsector_market_defense";
+    private static final String SOURCE_KEY = "harshsector_market_defense_source";
+
+    private static final String SOURCE = "harshsector_market_defense";
+    private static final String DESCRIPTION = "Enhanced defenses";
+
+    // Indexes of the saved multipliers
+    private static final int GROUND_DEFENSES = 0;
+    private static final int PATROL_SIZE = 1;
+
+    // Market size the base multipliers apply to
+    private static final int BASE_SIZE = 3;
+
+    // Markets checked in rotation per economy tick
+    private static final int MARKETS_PER_TICK = 8;
+
+    private static Map<String, float[]> applied;
+
+    // Markets whose saved multipliers no longer match, by ID, in the order they were found
+    private static final Map<String, MarketAPI> changed = new LinkedHashMap<String, MarketAPI>();
+
+    // Markets being checked in rotation, copied from the economy once per round
+    private static List<MarketAPI> rotation;
+    private static int next = 0;
+
+    /**
+     * Load the saved multipliers and bring every market up to date.
+     * Called from MarketDefenseFeature.register()
+     */
+    @SuppressWarnings("unchecked")
+    static void load() {
+        Map<String, Object> data = Global.getSector().getPersistentData();
+        applied = (Map<String, float[]>) data.get(DATA_KEY);
+        if (applied == null) {
+            applied = new HashMap<String, float[]>();
+            data.put(DATA_KEY, applied);
+        }
+
+        // Modifiers from a version with another source key are removed and applied again
+        String source = (String) data.get(SOURCE_KEY);
+        if (source != null && !SOURCE.equals(source)) {
+            removeModifiers(applied, source);
+            applied.clear();
+        }
+        data.put(SOURCE_KEY, SOURCE);
+
+        changed.clear();
+        rotation = null;
+        next = 0;
+
+        for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+            check(market);
+        }
+        int count = flush();
+        if (log.isInfoEnabled()) {
+            log.info("MarketDefenses: " + applied.size() + " markets defended, " + count + " updated on load");
+        }
+    }
+
+    /**
+     * Remove every modifier a save still has from when the feature was enabled.
+     */
+    @SuppressWarnings("unchecked")
+    static void removeAll() {
+        Map<String, Object> data = Global.getSector().getPersistentData();
+        Map<String, float[]> saved = (Map<String, float[]>) data.remove(DATA_KEY);
+        String source = (String) data.remove(SOURCE_KEY);
+        applied = null;
+        changed.clear();
+        rotation = null;
+        if (saved == null) return;
+
+        removeModifiers(saved, source != null ? source : SOURCE);
+        if (log.isInfoEnabled()) {
+            log.info("MarketDefenses: Removed modifiers from " + saved.size() + " markets");
+        }
+    }
+
+    private static void removeModifiers(Map<String, float[]> saved, String source) {
+        for (Map.Entry<String, float[]> entry : saved.entrySet()) {
+            MarketAPI market = Global.getSector().getEconomy().getMarket(entry.getKey());
+            if (market != null) {
+                remove(market, source, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Check the next few markets of the rotation, starting a new round when the last one is done.
+     */
+    static void checkNext() {
+        if (applied == null) return;
+
+        if (rotation == null || next >= rotation.size()) {
+            rotation = Global.getSector().getEconomy().getMarketsCopy();
+            next = 0;
+        }
+        int end = Math.min(next + MARKETS_PER_TICK, rotation.size());
+        while (next < end) {
+            check(rotation.get(next++));
+        }
+    }
+
+    /**
+     * Add a market to the changed set if its saved multipliers no longer match it.
+     */
+    static void check(MarketAPI market) {
+        if (applied == null) return;
+
+        float groundMult = getGroundMult(market);
+        float patrolMult = getPatrolMult(market);
+        float[] mults = applied.get(market.getId());
+        if (mults == null) {
+            // Markets without saved multipliers have no modifiers
+            if (groundMult == 1f && patrolMult == 1f) return;
+        } else if (mults[GROUND_DEFENSES] == groundMult && mults[PATROL_SIZE] == patrolMult) {
+            return;
+        }
+        changed.put(market.getId(), market);
+    }
+
+    /**
+     * Reapply modifiers to every changed market.
+     *
+     * @return Number of markets updated
+     */
+    static int flush() {
+        if (changed.isEmpty()) return 0;
+
+        int count = 0;
+        for (MarketAPI market : changed.values()) {
+            float[] old = applied.remove(market.getId());
+            if (old != null) {
+                remove(market, SOURCE, old);
+            }
+
+            float[] mults = { getGroundMult(market), getPatrolMult(market) };
+            if (mults[GROUND_DEFENSES] != 1f || mults[PATROL_SIZE] != 1f) {
+                apply(market, mults);
+                applied.put(market.getId(), mults);
+            }
+            count++;
+
+            if (log.isDebugEnabled()) {
+                log.debug("MarketDefenses: " + market.getName() + " (" + market.getFactionId() + ", size " +
+                          market.getSize() + ") ground defenses x" + mults[GROUND_DEFENSES] +
+                          ", patrols x" + mults[PATROL_SIZE]);
+            }
+        }
+        changed.clear();
+        REAPPLIED.add(count);
+        return count;
+    }
+
+    private static void apply(MarketAPI market, float[] mults) {
+        MutableMarketStatsAPI stats = market.getStats();
+        if (mults[GROUND_DEFENSES] != 1f) {
+            stats.getDynamic().getMod(Stats.GROUND_DEFENSES_MOD).modifyMult(SOURCE, mults[GROUND_DEFENSES], DESCRIPTION);
+        }
+        if (mults[PATROL_SIZE] != 1f) {
+            stats.getDynamic().getMod(Stats.COMBAT_FLEET_SIZE_MULT).modifyMult(SOURCE, mults[PATROL_SIZE], DESCRIPTION);
+        }
+    }
+
+    private static void remove(MarketAPI market, String source, float[] mults) {
+        MutableMarketStatsAPI stats = market.getStats();
+        if (mults[GROUND_DEFENSES] != 1f) {
+            stats.getDynamic().getMod(Stats.GROUND_DEFENSES_MOD).unmodifyMult(source);
+        }
+        if (mults[PATROL_SIZE] != 1f) {
+            stats.getDynamic().getMod(Stats.COMBAT_FLEET_SIZE_MULT).unmodifyMult(source);
+        }
+    }
+
+    private static float getGroundMult(MarketAPI market) {
+        if (market.isPlayerOwned()) return 1f;
+
+        float mult = MarketDefenseFeature.getGroundDefenseMult() + getSizeBonus(market);
+        String factionId = market.getFactionId();
+        if (Factions.PIRATES.equals(factionId) || Factions.LUDDIC_PATH.equals(factionId)) {
+            mult += MarketDefenseFeature.getRaiderBonus();
+        }
+        return mult;
+    }
+
+    private static float getPatrolMult(MarketAPI market) {
+        if (market.isPlayerOwned()) return 1f;
+        return MarketDefenseFeature.getPatrolSizeMult() + getSizeBonus(market);
+    }
+
+    private static float getSizeBonus(MarketAPI market) {
+        return MarketDefenseFeature.getSizeBonus() * Math.max(0, market.getSize() - BASE_SIZE);
+    }
+}
@@ -0,0 +1,163 @@
+package harshsector.features.militaryregulations;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CargoStackAPI;
+import com.fs.starfarer.api.campaign.econ.CommoditySpecAPI;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI.HullSize;
+import com.fs.starfarer.api.impl.campaign.ids.Commodities;
+import com.fs.starfarer.api.loading.WeaponSpecAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+import harshsector.core.Settings;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which commodities, weapons and hulls each restriction tier forbids, computed once.
+ *
+ * Every commodity, weapon and hull spec gets a dense index when the index is built. Each
+ * tier then holds one bitset per kind with the restricted specs' bits set, so checking a
+ * cargo stack or ship is one ID-to-index lookup and one bit test - no spec access, tier or
+ * fleet point comparisons in the trade UI's per-stack calls.
+ *
+ * Tiers:
+ * - TIER_OPEN: open markets of regulated factions - weapons above the legal tier, combat
+ *   hulls above the legal fleet points, and military commodities are restricted
+ * - TIER_MILITARY: military markets - only endgame gear, if that option is on
+ *
+ * The index is built on first use after a game load and rebuilt only when the settings
+ * snapshot changes.
+ */
+class LegalityIndex {
+
+    private static final FeatureLog log = MilitaryRegulationsFeature.getLog(LegalityIndex.class);
+
+    private static final Metrics.Histogram BUILD_NANOS = Metrics.histogram("regulations.index_build.ns");
+
+    static final int TIER_OPEN = 0;
+    static final int TIER_MILITARY = 1;
+    private static final int TIERS = 2;
+
+    // Weapon tier treated as endgame
+    private static final int ENDGAME_TIER = 3;
+
+    // Commodities only military markets trade in
+    private static final String[] MILITARY_COMMODITIES = { Commodities.HAND_WEAPONS };
+
+    private static LegalityIndex current;
+    private static Settings.Snapshot builtFor;
+
+    private final Map<String, Integer> commodityIndex = new HashMap<String, Integer>();
+    private final Map<String, Integer> weaponIndex = new HashMap<String, Integer>();
+    private final Map<String, Integer> hullIndex = new HashMap<String, Integer>();
+
+    private final BitSet[] restrictedCommodities = new BitSet[TIERS];
+    private final BitSet[] restrictedWeapons = new BitSet[TIERS];
+    private final BitSet[] restrictedHulls = new BitSet[TIERS];
+
+    private LegalityIndex(int maxLegalTier, int maxLegalFleetPoints, boolean militaryEndgame) {
+        for (int tier = 0; tier < TIERS; tier++) {
+            restrictedCommodities[tier] = new BitSet();
+            restrictedWeapons[tier] = new BitSet();
+            restrictedHulls[tier] = new BitSet();
+        }
+
+        List<CommoditySpecAPI> commodities = Global.getSettings().getAllCommoditySpecs();
+        for (int i = 0; i < commodities.size(); i++) {
+            commodityIndex.put(commodities.get(i).getId(), i);
+        }
+        for (String id : MILITARY_COMMODITIES) {
+            Integer index = commodityIndex.get(id);
+            if (index != null) {
+                restrictedCommodities[TIER_OPEN].set(index);
+            }
+        }
+
+        List<WeaponSpecAPI> weapons = Global.getSettings().getAllWeaponSpecs();
+        for (int i = 0; i < weapons.size(); i++) {
+            WeaponSpecAPI weapon = weapons.get(i);
+            weaponIndex.put(weapon.getWeaponId(), i);
+            if (weapon.getTier() > maxLegalTier) {
+                restrictedWeapons[TIER_OPEN].set(i);
+            }
+            if (militaryEndgame && weapon.getTier() >= ENDGAME_TIER) {
+                restrictedWeapons[TIER_MILITARY].set(i);
+            }
+        }
+
+        List<ShipHullSpecAPI> hulls = Global.getSettings().getAllShipHullSpecs();
+        for (int i = 0; i < hulls.size(); i++) {
+            ShipHullSpecAPI hull = hulls.get(i);
+            hullIndex.put(hull.getHullId(), i);
+            if (!hull.isCivilianNonCarrier() && hull.getFleetPoints() > maxLegalFleetPoints) {
+                restrictedHulls[TIER_OPEN].set(i);
+            }
+            if (militaryEndgame && hull.getHullSize() == HullSize.CAPITAL_SHIP) {
+                restrictedHulls[TIER_MILITARY].set(i);
+            }
+        }
+    }
+
+    /**
+     * The index for the current settings, built on first use and after settings change.
+     */
+    static LegalityIndex get() {
+        Settings.Snapshot snapshot = Settings.snapshot();
+        if (current == null || builtFor != snapshot) {
+            long start = System.nanoTime();
+            current = new LegalityIndex(
+                MilitaryRegulationsFeature.getMaxLegalTier(),
+                MilitaryRegulationsFeature.getMaxLegalFleetPoints(),
+                MilitaryRegulationsFeature.isMilitaryEndgameRemoved());
+            builtFor = snapshot;
+            BUILD_NANOS.record(System.nanoTime() - start);
+
+            if (log.isInfoEnabled()) {
+                log.info("LegalityIndex: Built for " + current.commodityIndex.size() + " commodities, " +
+                         current.weaponIndex.size() + " weapons, " + current.hullIndex.size() + " hulls - " +
+                         current.restrictedWeapons[TIER_OPEN].cardinality() + " weapons and " +
+                         current.restrictedHulls[TIER_OPEN].cardinality() + " hulls restricted on open markets");
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drop the index so the next lookup rebuilds it (e.g. after a game load).
+     */
+    static void clear() {
+        current = null;
+        builtFor = null;
+    }
+
+    /**
+     * Check if a cargo stack is restricted at the given tier.
+     * Only commodity and weapon stacks can be restricted.
+     */
+    boolean isRestricted(int tier, CargoStackAPI stack) {
+        if (stack.isWeaponStack()) {
+            return test(restrictedWeapons[tier], weaponIndex, stack.getWeaponId());
+        }
+        if (stack.isCommodityStack()) {
+            return test(restrictedCommodities[tier], commodityIndex, stack.getCommodityId());
+        }
+        return false;
+    }
+
+    /**
+     * Check if a hull is restricted at the given tier.
+     */
+    boolean isHullRestricted(int tier, String hullId) {
+        return test(restrictedHulls[tier], hullIndex, hullId);
+    }
+
+    private static boolean test(BitSet restricted, Map<String, Integer> index, String id) {
+        if (id == null) return false;
+        Integer bit = index.get(id);
+        return bit != null && restricted.get(bit);
+    }
+}
@@ -0,0 +1,123 @@
+package harshsector.features.militaryregulations;
+
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Factions;
+import com.fs.starfarer.api.impl.campaign.ids.Industries;
+import com.fs.starfarer.api.impl.campaign.ids.Submarkets;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-market regulation state: whether a market enforces regulations at all.
+ *
+ * A market enforces regulations if it isn't player-owned, its faction submits to them
+ * (pirates, the Luddic Path and independents don't) and it has a patrol HQ, military base
+ * or high command to enforce them with. The result is cached per market ID together with
+ * the market's faction and a bitmask of which of those three structures it has, and
+ * recomputed only when one of those has changed - so checking a cached market is a faction
+ * comparison and three industry lookups.
+ */
+class MarketRegulations {
+
+    private static final FeatureLog log = MilitaryRegulationsFeature.getLog(MarketRegulations.class);
+
+    private static final Metrics.Counter REBUILDS = Metrics.counter("regulations.market_rebuilds");
+
+    // No restrictions apply
+    static final int NONE = -1;
+
+    // Military structures, as bits of a market's mask
+    private static final int PATROLHQ = 1;
+    private static final int MILITARYBASE = 2;
+    private static final int HIGHCOMMAND = 4;
+
+    private static final Map<String, Record> records = new HashMap<String, Record>();
+
+    /**
+     * Cached state of one market, and what it was computed from.
+     */
+    private static final class Record {
+        final String factionId;
+        final int military;
+        final boolean enforced;
+
+        Record(String factionId, int military, boolean enforced) {
+            this.factionId = factionId;
+            this.military = military;
+            this.enforced = enforced;
+        }
+
+        boolean matches(MarketAPI market, int military) {
+            return this.military == military
+                && (factionId == null ? market.getFactionId() == null : factionId.equals(market.getFactionId()));
+        }
+    }
+
+    static void clear() {
+        records.clear();
+    }
+
+    /**
+     * LegalityIndex tier that applies to a submarket, or NONE.
+     */
+    static int getTier(SubmarketAPI submarket) {
+        String specId = submarket.getSpecId();
+        int tier;
+        if (Submarkets.SUBMARKET_OPEN.equals(specId)) {
+            tier = LegalityIndex.TIER_OPEN;
+        } else if (Submarkets.GENERIC_MILITARY.equals(specId)) {
+            tier = LegalityIndex.TIER_MILITARY;
+        } else {
+            return NONE;
+        }
+
+        MarketAPI market = submarket.getMarket();
+        return market != null && isEnforced(market) ? tier : NONE;
+    }
+
+    /**
+     * Whether a market enforces regulations, recomputed only if its faction or military structures changed.
+     */
+    static boolean isEnforced(MarketAPI market) {
+        int military = getMilitary(market);
+        Record record = records.get(market.getId());
+        if (record == null || !record.matches(market, military)) {
+            record = new Record(market.getFactionId(), military, computeEnforced(market, military));
+            records.put(market.getId(), record);
+            REBUILDS.increment();
+
+            if (log.isDebugEnabled()) {
+                log.debug("MarketRegulations: " + market.getName() + " (" + market.getFactionId() + ") " +
+                          (record.enforced ? "enforces" : "does not enforce") + " regulations");
+            }
+        }
+        return record.enforced;
+    }
+
+    /**
+     * Bitmask of the military structures a market has.
+     */
+    private static int getMilitary(MarketAPI market) {
+        return (market.hasIndustry(Industries.PATROLHQ) ? PATROLHQ : 0)
+            | (market.hasIndustry(Industries.MILITARYBASE) ? MILITARYBASE : 0)
+            | (market.hasIndustry(Industries.HIGHCOMMAND) ? HIGHCOMMAND : 0);
+    }
+
+    private static boolean computeEnforced(MarketAPI market, int military) {
+        if (market.isPlayerOwned()) return false;
+
+        String factionId = market.getFactionId();
+        if (factionId == null
+                || Factions.PIRATES.equals(factionId)
+                || Factions.LUDDIC_PATH.equals(factionId)
+                || Factions.INDEPENDENT.equals(factionId)) {
+            return false;
+        }
+
+        return military != 0;
+    }
+}
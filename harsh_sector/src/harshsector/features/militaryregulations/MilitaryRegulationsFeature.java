@@ -0,0 +1,84 @@
+package harshsector.features.militaryregulations;
+
+import harshsector.core.FeatureLog;
+import harshsector.core.Settings;
+
+/**
+ * Military Market Regulations Feature
+ *
+ * Restricts military-grade weapons and combat ships to military markets and black markets.
+ * Open markets of factions that enforce regulations (and have a patrol HQ or military base
+ * to enforce them with) only sell civilian ships and low-tier weapons. Military markets can
+ * optionally drop endgame gear too. Based on Starpocalypse's militaryRegulations.
+ *
+ * Components:
+ * - LegalityIndex: Restricted commodities, weapons and hulls per tier, as bitsets over spec indexes
+ * - MarketRegulations: Cached per-market regulation state, rebuilt only when a market's
+ *   faction or structures change
+ * - RegulatedCargoFilter: Removes restricted stock from regulated submarkets when they restock
+ */
+public class MilitaryRegulationsFeature {
+
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey ENABLED =
+        Settings.booleanKey("harshsector_military_regulations", false);
+    private static final Settings.IntKey MAX_LEGAL_TIER =
+        Settings.intKey("harshsector_regulation_max_tier", 0);
+    private static final Settings.IntKey MAX_LEGAL_FP =
+        Settings.intKey("harshsector_regulation_max_fp", 0);
+    private static final Settings.BooleanKey MILITARY_ENDGAME =
+        Settings.booleanKey("harshsector_regulation_military_endgame", false);
+    private static final Settings.IntKey LOG_LEVEL =
+        Settings.intKey("harshsector_log_regulations", FeatureLog.WARN);
+
+    private static final FeatureLog log = getLog(MilitaryRegulationsFeature.class);
+
+    /**
+     * Register the military regulations feature with the game.
+     * Called from HarshSectorModPlugin.onGameLoad()
+     */
+    public static void register() {
+        log.info("Harsh Sector: Registering Military Regulations feature");
+        MarketRegulations.clear();
+        RegulatedCargoFilter.register();
+    }
+
+    /**
+     * Create a logger for a class in this feature, using the feature's log level setting.
+     */
+    static FeatureLog getLog(Class<?> owner) {
+        return FeatureLog.get(owner, LOG_LEVEL);
+    }
+
+    /**
+     * Check if military market regulations are enabled.
+     */
+    public static boolean isEnabled() {
+        return ENABLED.get();
+    }
+
+    /**
+     * Get the highest weapon tier open markets may sell.
+     */
+    public static int getMaxLegalTier() {
+        return MAX_LEGAL_TIER.get();
+    }
+
+    /**
+     * Get the highest fleet point cost of a combat hull open markets may sell.
+     * Civilian hulls are always legal.
+     */
+    public static int getMaxLegalFleetPoints() {
+        return MAX_LEGAL_FP.get();
+    }
+
+    /**
+     * Check if military markets also drop endgame gear.
+     *
+     * When enabled: tier 3 weapons and capital ships are removed from military markets too
+     * When disabled: military markets sell everything
+     */
+    public static boolean isMilitaryEndgameRemoved() {
+        return MILITARY_ENDGAME.get();
+    }
+}
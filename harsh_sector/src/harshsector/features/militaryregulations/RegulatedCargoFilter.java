@@ -0,0 +1,69 @@
+package harshsector.features.militaryregulations;
+
+import com.fs.starfarer.api.campaign.CargoAPI;
+import com.fs.starfarer.api.campaign.CargoStackAPI;
+import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+
+/**
+ * Removes restricted stock from regulated submarkets whenever their cargo and ships update.
+ *
+ * Stock is filtered once per restock rather than on every trade UI refresh. Each stack and
+ * ship is one LegalityIndex bit test, and markets that don't enforce regulations (or
+ * submarkets other than open and military markets) are skipped after one cached lookup.
+ */
+public class RegulatedCargoFilter implements EventDispatcher.SubmarketUpdated {
+
+    private static final FeatureLog log = MilitaryRegulationsFeature.getLog(RegulatedCargoFilter.class);
+
+    private static final Metrics.Counter STACKS_REMOVED = Metrics.counter("regulations.stacks_removed");
+    private static final Metrics.Counter SHIPS_REMOVED = Metrics.counter("regulations.ships_removed");
+
+    /**
+     * Subscribe to submarket restocks for this game.
+     * Called from MilitaryRegulationsFeature.register()
+     */
+    public static void register() {
+        EventDispatcher.SUBMARKET_UPDATED.subscribe(new RegulatedCargoFilter());
+        log.info("RegulatedCargoFilter subscribed");
+    }
+
+    @Override
+    public void onSubmarketUpdated(SubmarketAPI submarket) {
+        int tier = MarketRegulations.getTier(submarket);
+        if (tier == MarketRegulations.NONE) return;
+
+        CargoAPI cargo = submarket.getCargo();
+        if (cargo == null) return;
+
+        LegalityIndex index = LegalityIndex.get();
+
+        int stacks = 0;
+        for (CargoStackAPI stack : cargo.getStacksCopy()) {
+            if (index.isRestricted(tier, stack)) {
+                cargo.removeStack(stack);
+                stacks++;
+            }
+        }
+
+        int ships = 0;
+        if (cargo.getMothballedShips() != null) {
+            for (FleetMemberAPI member : cargo.getMothballedShips().getMembersListCopy()) {
+                if (index.isHullRestricted(tier, member.getHullId())) {
+                    cargo.getMothballedShips().removeFleetMember(member);
+                    ships++;
+                }
+            }
+        }
+
+        STACKS_REMOVED.add(stacks);
+        SHIPS_REMOVED.add(ships);
+        if ((stacks > 0 || ships > 0) && log.isDebugEnabled()) {
+            log.debug("RegulatedCargoFilter: Removed " + stacks + " stacks and " + ships + " ships from " +
+                      submarket.getNameOneLine() + " at " + submarket.getMarket().getName());
+        }
+    }
+}
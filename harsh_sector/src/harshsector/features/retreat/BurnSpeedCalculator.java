@@ -2,16 +2,18 @@ package harshsector.features.retreat;
 
 import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.characters.AbilityPlugin;
 import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Abilities;
 
-import org.apache.log4j.Logger;
+import harshsector.core.FeatureLog;
 
 /**
  * Utility class for calculating burn speeds and delays for the tactical retreat system.
  */
 public class BurnSpeedCalculator {
 
-    private static final Logger log = Global.getLogger(BurnSpeedCalculator.class);
+    private static final FeatureLog log = RetreatFeature.getLog(BurnSpeedCalculator.class);
 
     // Default burn level if we can't determine the actual value
     private static final int DEFAULT_BURN = 8;
@@ -19,6 +21,7 @@ public class BurnSpeedCalculator {
     /**
      * Get the minimum burn level of the player's fleet (slowest non-mothballed ship).
      * This determines the fleet's effective travel speed.
+     * Backed by the fleet's cached {@link FleetBurnProfile}.
      *
      * @return The lowest burn level among active player ships
      */
@@ -29,24 +32,16 @@ public class BurnSpeedCalculator {
             return DEFAULT_BURN;
         }
 
-        int minBurn = Integer.MAX_VALUE;
-        for (FleetMemberAPI member : playerFleet.getFleetData().getMembersListCopy()) {
-            // Skip mothballed ships - they don't affect fleet speed
-            if (member.isMothballed()) continue;
-
-            int burn = getShipBurn(member);
-            if (burn < minBurn) {
-                minBurn = burn;
-            }
-        }
+        // Cached per fleet - only rescans when the fleet has changed
+        FleetBurnProfile profile = FleetBurnProfile.get(playerFleet);
 
         // Fallback if somehow no ships
-        if (minBurn == Integer.MAX_VALUE) {
+        if (!profile.hasActiveShips()) {
             log.warn("BurnSpeedCalculator: No active ships in player fleet");
             return DEFAULT_BURN;
         }
 
-        return minBurn;
+        return profile.getMinBurn();
     }
 
     /**
@@ -75,12 +70,16 @@ public class BurnSpeedCalculator {
             }
 
             // Fallback: try to estimate from hull size if stats unavailable
-            log.warn("BurnSpeedCalculator: Could not get stats for " + member.getShipName() +
-                     ", using hull size estimate");
+            if (log.isWarnEnabled() && log.allow("estimate")) {
+                log.warn("BurnSpeedCalculator: Could not get stats for " + member.getShipName() +
+                         ", using hull size estimate");
+            }
             return estimateBurnFromHullSize(member);
 
         } catch (Exception e) {
-            log.warn("BurnSpeedCalculator: Error getting burn for " + member.getShipName(), e);
+            if (log.isWarnEnabled() && log.allow("error")) {
+                log.warn("BurnSpeedCalculator: Error getting burn for " + member.getShipName(), e);
+            }
             return estimateBurnFromHullSize(member);
         }
     }
@@ -97,28 +96,42 @@ public class BurnSpeedCalculator {
         return DEFAULT_BURN;
     }
 
+    /**
+     * Check if a fleet is emergency burning (active or still winding up/down).
+     */
+    public static boolean isEmergencyBurning(CampaignFleetAPI fleet) {
+        if (fleet == null) return false;
+        AbilityPlugin eburn = fleet.getAbility(Abilities.EMERGENCY_BURN);
+        return eburn != null && eburn.isActiveOrInProgress();
+    }
+
+    /**
+     * Apply the emergency burn modifier to the player's minimum burn for one pursuing fleet.
+     *
+     * Player emergency burning = enemies delayed longer (player was faster)
+     * Enemy emergency burning = that fleet's ships deploy faster (they were also boosting)
+     */
+    public static int getEffectivePlayerBurn(int playerMinBurn, boolean playerEmergencyBurning,
+                                             boolean enemyEmergencyBurning, int burnModifier) {
+        int effective = playerMinBurn;
+        if (playerEmergencyBurning) effective += burnModifier;
+        if (enemyEmergencyBurning) effective -= burnModifier;
+        return effective;
+    }
+
     /**
      * Calculate the delay in seconds for an enemy ship based on burn speed differential.
      *
      * Ships with burn >= playerMinBurn get no delay (they can catch up immediately).
-     * Slower ships are delayed by (playerMinBurn - shipBurn) * delayPerBurn seconds.
+     * Slower ships are delayed by the curve's value for the burn difference and their hull size.
      *
      * @param shipBurn The enemy ship's burn level
      * @param playerMinBurn The player fleet's minimum burn level
-     * @param delayPerBurn Seconds of delay per burn level difference
-     * @param maxDelay Maximum delay cap in seconds
+     * @param hullSize The ship's DelayCurve hull size
+     * @param curve Delay curve, usually DelayCurve.get()
      * @return Delay in seconds (0 if ship is fast enough)
      */
-    public static float calculateDelay(int shipBurn, int playerMinBurn, float delayPerBurn, float maxDelay) {
-        if (shipBurn >= playerMinBurn) {
-            // Ship is fast enough to catch up immediately
-            return 0f;
-        }
-
-        int burnDiff = playerMinBurn - shipBurn;
-        float delay = burnDiff * delayPerBurn;
-
-        // Apply maximum delay cap
-        return Math.min(delay, maxDelay);
+    static float calculateDelay(int shipBurn, int playerMinBurn, int hullSize, DelayCurve curve) {
+        return curve.getDelay(playerMinBurn - shipBurn, hullSize);
     }
 }
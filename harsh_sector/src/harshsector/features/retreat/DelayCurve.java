@@ -0,0 +1,167 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.Settings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pursuit delay for every burn difference and hull size, computed once from the delay settings.
+ *
+ * The delay grows with the burn difference between the player's slowest ship and an enemy ship
+ * along one of these curves, is multiplied per hull size and capped at the maximum delay:
+ * - LINEAR: delayPerBurn seconds per burn level
+ * - EXPONENTIAL: delayPerBurn for the first burn level, each further level growth times the previous
+ * - STEPPED: the burn difference is rounded up to whole steps of a few burn levels, then linear
+ *
+ * The curve is compiled into a dense float table indexed by hull size and burn difference, so a
+ * ship's delay is one array read - no curve math or settings reads while scheduling. The table is
+ * built on first use after a game load and rebuilt only when the settings snapshot changes.
+ * Invalid settings are reported and replaced with the nearest valid value when it's built.
+ */
+final class DelayCurve {
+
+    private static final FeatureLog log = RetreatFeature.getLog(DelayCurve.class);
+
+    static final int LINEAR = 0;
+    static final int EXPONENTIAL = 1;
+    static final int STEPPED = 2;
+    private static final String[] CURVE_NAMES = { "linear", "exponential", "stepped" };
+
+    // Hull sizes, as table rows
+    static final int FRIGATE = 0;
+    static final int DESTROYER = 1;
+    static final int CRUISER = 2;
+    static final int CAPITAL = 3;
+    static final int HULL_SIZES = 4;
+
+    // Largest burn difference with its own entry; larger ones use this entry
+    static final int MAX_BURN_DIFF = 32;
+    private static final int ROW = MAX_BURN_DIFF + 1;
+
+    private static DelayCurve current;
+    private static Settings.Snapshot builtFor;
+    private static String reportedProblems;
+
+    private final float[] delays = new float[HULL_SIZES * ROW];
+    private final String description;
+
+    private DelayCurve(int curve, float delayPerBurn, float maxDelay, float growth, int step, float[] hullMults) {
+        for (int hull = 0; hull < HULL_SIZES; hull++) {
+            for (int diff = 1; diff <= MAX_BURN_DIFF; diff++) {
+                float base;
+                if (curve == EXPONENTIAL) {
+                    // Sum of a geometric series - each burn level costs growth times the previous one
+                    base = growth == 1f ? diff * delayPerBurn
+                        : (float) (delayPerBurn * (Math.pow(growth, diff) - 1) / (growth - 1));
+                } else if (curve == STEPPED) {
+                    base = ((diff + step - 1) / step) * step * delayPerBurn;
+                } else {
+                    base = diff * delayPerBurn;
+                }
+                delays[hull * ROW + diff] = Math.min(base * hullMults[hull], maxDelay);
+            }
+        }
+
+        this.description = CURVE_NAMES[curve] + " " + delayPerBurn + "s per burn" +
+            (curve == EXPONENTIAL ? ", growth " + growth : "") +
+            (curve == STEPPED ? ", steps of " + step : "") +
+            ", max " + maxDelay + "s, hull multipliers " + hullMults[FRIGATE] + "/" + hullMults[DESTROYER] +
+            "/" + hullMults[CRUISER] + "/" + hullMults[CAPITAL];
+    }
+
+    /**
+     * Compile a curve, replacing invalid values with the nearest valid ones.
+     *
+     * @param problems Receives a message for each invalid value
+     */
+    static DelayCurve compile(int curve, float delayPerBurn, float maxDelay, float growth, int step,
+                              float[] hullMults, List<String> problems) {
+        if (curve < LINEAR || curve > STEPPED) {
+            problems.add("unknown curve " + curve + ", using linear");
+            curve = LINEAR;
+        }
+        if (!(delayPerBurn >= 0f)) {
+            problems.add("delay per burn " + delayPerBurn + " must not be negative, using 0");
+            delayPerBurn = 0f;
+        }
+        if (!(maxDelay >= 0f)) {
+            problems.add("maximum delay " + maxDelay + " must not be negative, using 0");
+            maxDelay = 0f;
+        }
+        if (!(growth >= 1f) || Float.isInfinite(growth)) {
+            problems.add("growth " + growth + " must be at least 1, using 1");
+            growth = 1f;
+        }
+        if (step < 1) {
+            problems.add("step " + step + " must be at least 1, using 1");
+            step = 1;
+        }
+        if (hullMults.length != HULL_SIZES) {
+            throw new IllegalArgumentException("Expected " + HULL_SIZES + " hull multipliers, got " + hullMults.length);
+        }
+        float[] mults = hullMults.clone();
+        for (int hull = 0; hull < HULL_SIZES; hull++) {
+            if (!(mults[hull] >= 0f) || Float.isInfinite(mults[hull])) {
+                problems.add("hull multiplier " + mults[hull] + " must not be negative, using 1");
+                mults[hull] = 1f;
+            }
+        }
+        return new DelayCurve(curve, delayPerBurn, maxDelay, growth, step, mults);
+    }
+
+    /**
+     * The curve for the current settings, compiled on first use and after settings change.
+     */
+    static DelayCurve get() {
+        Settings.Snapshot snapshot = Settings.snapshot();
+        if (current == null || builtFor != snapshot) {
+            List<String> problems = new ArrayList<String>();
+            current = compile(
+                RetreatFeature.getDelayCurve(),
+                RetreatFeature.getRetreatDelayPerBurn(),
+                RetreatFeature.getRetreatMaxDelay(),
+                RetreatFeature.getDelayCurveGrowth(),
+                RetreatFeature.getDelayCurveStep(),
+                RetreatFeature.getHullDelayMultipliers(),
+                problems);
+            builtFor = snapshot;
+
+            // Settings are rebuilt several times per load - only report what's new
+            String reported = problems.isEmpty() ? null : problems.toString();
+            if (reported != null && !reported.equals(reportedProblems) && log.isWarnEnabled()) {
+                log.warn("DelayCurve: Invalid delay settings " + reported);
+            }
+            reportedProblems = reported;
+
+            if (log.isInfoEnabled()) {
+                log.info("DelayCurve: Compiled " + current.description);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Table row for a ship's hull size.
+     */
+    static int hullSize(FleetMemberAPI member) {
+        if (member.isCapital()) return CAPITAL;
+        if (member.isCruiser()) return CRUISER;
+        if (member.isDestroyer()) return DESTROYER;
+        return FRIGATE;
+    }
+
+    /**
+     * Delay in seconds for a ship the given number of burn levels slower than the player.
+     */
+    float getDelay(int burnDiff, int hullSize) {
+        if (burnDiff <= 0) return 0f;
+        return delays[hullSize * ROW + Math.min(burnDiff, MAX_BURN_DIFF)];
+    }
+
+    String describe() {
+        return description;
+    }
+}
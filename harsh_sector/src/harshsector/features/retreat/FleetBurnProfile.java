@@ -0,0 +1,183 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.campaign.BattleAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.CoreUITabId;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI.HullSize;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import harshsector.core.EventDispatcher;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Burn levels of every member of a campaign fleet, resolved once and cached.
+ *
+ * A profile holds the fleet's minimum burn (slowest non-mothballed ship), the burn of
+ * each member and a histogram of active ships by hull size. Profiles are cached per fleet
+ * and checked on lookup against two cheap signals, without reading any ship's stats:
+ * - the fleet's member count and fleet points, which change when ships join or leave
+ * - a version bumped by events that can change burn levels without changing membership -
+ *   a battle, or the player opening a core UI tab, where ships are mothballed and refit
+ *   and skills are picked. The campaign is paused while a tab is open, so nothing looks
+ *   a profile up between the bump and the changes being made.
+ *
+ * Call {@link #invalidate(CampaignFleetAPI)} when a fleet is known to have changed, or must
+ * be exact - RetreatFleetDialog does so for both sides when the player tries to disengage.
+ */
+public class FleetBurnProfile {
+
+    // Weak keys so despawned fleets (and fleets from a previous save) can be collected
+    private static final Map<CampaignFleetAPI, FleetBurnProfile> cache =
+        new WeakHashMap<CampaignFleetAPI, FleetBurnProfile>();
+
+    private static final HullSize[] HULL_SIZES = HullSize.values();
+
+    // Bumped by events that may change burn levels in any fleet
+    private static int version = 0;
+
+    private final int minBurn;
+    private final int[] burns;
+    private final Map<String, Integer> indexByMemberId;
+    private final int[] hullSizeCounts;
+
+    // What the fleet looked like when this profile was built
+    private final int numMembers;
+    private final int fleetPoints;
+    private final int builtVersion;
+
+    private FleetBurnProfile(CampaignFleetAPI fleet) {
+        List<FleetMemberAPI> members = fleet.getFleetData().getMembersListCopy();
+
+        int slowest = Integer.MAX_VALUE;
+        burns = new int[members.size()];
+        indexByMemberId = new HashMap<String, Integer>(members.size() * 2);
+        hullSizeCounts = new int[HULL_SIZES.length];
+
+        for (int i = 0; i < members.size(); i++) {
+            FleetMemberAPI member = members.get(i);
+            int burn = BurnSpeedCalculator.getShipBurn(member);
+            burns[i] = burn;
+            indexByMemberId.put(member.getId(), i);
+
+            // Mothballed ships don't affect fleet speed
+            if (member.isMothballed()) continue;
+
+            if (burn < slowest) {
+                slowest = burn;
+            }
+            HullSize size = member.getHullSpec() != null ? member.getHullSpec().getHullSize() : null;
+            if (size != null) {
+                hullSizeCounts[size.ordinal()]++;
+            }
+        }
+
+        this.minBurn = slowest;
+        this.numMembers = fleet.getNumMembersFast();
+        this.fleetPoints = fleet.getFleetPoints();
+        this.builtVersion = version;
+    }
+
+    /**
+     * Drop cached profiles and start listening for fleet changes in the loaded game.
+     * Called from RetreatFeature.register()
+     */
+    static void register() {
+        cache.clear();
+        version = 0;
+        EventDispatcher.BATTLE_OCCURRED.subscribe(BATTLE_INVALIDATOR);
+        EventDispatcher.CORE_TAB_OPENED.subscribe(TAB_INVALIDATOR);
+    }
+
+    /**
+     * Get the burn profile for a fleet, rebuilding it only if the fleet has changed.
+     */
+    public static FleetBurnProfile get(CampaignFleetAPI fleet) {
+        FleetBurnProfile profile = cache.get(fleet);
+        if (profile == null || !profile.matches(fleet)) {
+            profile = new FleetBurnProfile(fleet);
+            cache.put(fleet, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Drop the cached profile for a fleet so the next lookup rescans it.
+     */
+    public static void invalidate(CampaignFleetAPI fleet) {
+        cache.remove(fleet);
+    }
+
+    /**
+     * Make every cached profile rescan on its next lookup.
+     */
+    public static void invalidateAll() {
+        version++;
+    }
+
+    private boolean matches(CampaignFleetAPI fleet) {
+        return builtVersion == version
+            && numMembers == fleet.getNumMembersFast()
+            && fleetPoints == fleet.getFleetPoints();
+    }
+
+    /**
+     * True if the fleet has at least one non-mothballed ship.
+     */
+    public boolean hasActiveShips() {
+        return minBurn != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Burn level of the slowest non-mothballed ship.
+     * Only meaningful when {@link #hasActiveShips()} is true.
+     */
+    public int getMinBurn() {
+        return minBurn;
+    }
+
+    /**
+     * Burn level of a member of this fleet.
+     * Members that joined after the profile was built are looked up directly.
+     */
+    public int getBurn(FleetMemberAPI member) {
+        Integer index = indexByMemberId.get(member.getId());
+        return index != null ? burns[index] : BurnSpeedCalculator.getShipBurn(member);
+    }
+
+    /**
+     * Number of non-mothballed ships of the given hull size.
+     */
+    public int getHullSizeCount(HullSize size) {
+        return hullSizeCounts[size.ordinal()];
+    }
+
+    /**
+     * Number of members (including mothballed ships) in the profile.
+     */
+    public int size() {
+        return burns.length;
+    }
+
+    /**
+     * Battles cost ships, CR and hull - invalidate every profile after one.
+     */
+    private static final EventDispatcher.BattleOccurred BATTLE_INVALIDATOR = new EventDispatcher.BattleOccurred() {
+        @Override
+        public void onBattleOccurred(CampaignFleetAPI primaryWinner, BattleAPI battle) {
+            invalidateAll();
+        }
+    };
+
+    /**
+     * Ships are mothballed and refit, and skills picked, in the core UI tabs.
+     */
+    private static final EventDispatcher.CoreTabOpened TAB_INVALIDATOR = new EventDispatcher.CoreTabOpened() {
+        @Override
+        public void onCoreTabOpened(CoreUITabId tab) {
+            invalidateAll();
+        }
+    };
+}
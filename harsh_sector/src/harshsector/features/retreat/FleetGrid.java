@@ -0,0 +1,123 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import org.lwjgl.util.vector.Vector2f;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid of the fleets in one location, for "which fleets are near the player" queries.
+ *
+ * The grid is refreshed incrementally: each {@link #refresh} call re-buckets only a few
+ * fleets, continuing round-robin through the location's fleet list, so keeping it current
+ * costs the same per frame in an empty system as in a busy core world. A fleet's cell can
+ * therefore be a few frames stale; callers check actual distances on query results.
+ *
+ * Fleets that despawn or leave the location are dropped when a query finds them.
+ */
+class FleetGrid {
+
+    // Roughly a fleet's sensor range, so a query touches only a handful of cells
+    static final float CELL_SIZE = 2000f;
+
+    private final Map<Long, List<CampaignFleetAPI>> cells = new HashMap<Long, List<CampaignFleetAPI>>();
+    private final Map<CampaignFleetAPI, Long> cellByFleet = new IdentityHashMap<CampaignFleetAPI, Long>();
+
+    private LocationAPI location;
+    private int cursor = 0;
+
+    /**
+     * Re-bucket up to maxFleets fleets of the location, continuing where the last call stopped.
+     * Switching to a different location clears the grid.
+     */
+    void refresh(LocationAPI location, int maxFleets) {
+        if (location != this.location) {
+            clear();
+            this.location = location;
+        }
+        if (location == null) return;
+
+        List<CampaignFleetAPI> fleets = location.getFleets();
+        int count = fleets.size();
+        int updates = Math.min(maxFleets, count);
+        for (int i = 0; i < updates; i++) {
+            if (cursor >= count) cursor = 0;
+            update(fleets.get(cursor++));
+        }
+    }
+
+    private void update(CampaignFleetAPI fleet) {
+        Long cell = cellKey(fleet.getLocation());
+        Long current = cellByFleet.get(fleet);
+        if (cell.equals(current)) return;
+
+        if (current != null) {
+            cells.get(current).remove(fleet);
+        }
+        List<CampaignFleetAPI> bucket = cells.get(cell);
+        if (bucket == null) {
+            bucket = new ArrayList<CampaignFleetAPI>();
+            cells.put(cell, bucket);
+        }
+        bucket.add(fleet);
+        cellByFleet.put(fleet, cell);
+    }
+
+    /**
+     * Add every indexed fleet in the cells overlapping the given circle to out.
+     * Results can include fleets slightly outside the radius.
+     */
+    void query(Vector2f center, float radius, List<CampaignFleetAPI> out) {
+        int minX = cellCoord(center.x - radius);
+        int maxX = cellCoord(center.x + radius);
+        int minY = cellCoord(center.y - radius);
+        int maxY = cellCoord(center.y + radius);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                List<CampaignFleetAPI> bucket = cells.get(cellKey(x, y));
+                if (bucket == null) continue;
+
+                for (int i = bucket.size() - 1; i >= 0; i--) {
+                    CampaignFleetAPI fleet = bucket.get(i);
+                    if (!fleet.isAlive() || fleet.getContainingLocation() != location) {
+                        bucket.remove(i);
+                        cellByFleet.remove(fleet);
+                        continue;
+                    }
+                    out.add(fleet);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        cellByFleet.clear();
+        cursor = 0;
+    }
+
+    /**
+     * Number of fleets currently indexed.
+     */
+    int size() {
+        return cellByFleet.size();
+    }
+
+    private static int cellCoord(float coord) {
+        return (int) Math.floor(coord / CELL_SIZE);
+    }
+
+    private static Long cellKey(Vector2f position) {
+        return cellKey(cellCoord(position.x), cellCoord(position.y));
+    }
+
+    private static Long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
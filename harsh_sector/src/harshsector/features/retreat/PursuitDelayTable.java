@@ -0,0 +1,210 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.BattleAPI;
+import com.fs.starfarer.api.campaign.CampaignClockAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import harshsector.core.FeatureLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-member pursuit delays for one engagement, computed before combat starts.
+ *
+ * When the player tries to disengage, RetreatFleetDialog computes the table and leaves it
+ * pending for the enemy fleet. TacticalRetreatPlugin consumes it at combat init and looks up
+ * each reserve ship with one binary search, instead of detecting emergency burn and scanning
+ * burn levels while combat is loading. If no table is pending (e.g. the battle was started by
+ * another mod's dialog), the plugin computes one in place with the same code.
+ *
+ * Battles can involve several enemy campaign fleets (bounty escorts, invasion fleets), each
+ * with its own emergency burn state. The table resolves every fleet on the enemy side once -
+ * E-burn, burn profile and effective player burn against it - and computes each member's
+ * delay from its own fleet's values. Cost is linear in ship count.
+ *
+ * Delays are stored as parallel arrays sorted by member ID.
+ */
+class PursuitDelayTable {
+
+    private static final FeatureLog log = RetreatFeature.getLog(PursuitDelayTable.class);
+
+    // Returned by getDelay for members that weren't in the battle when the table was built
+    static final float NO_ENTRY = -1f;
+
+    // Table prepared in the dialog, waiting for combat to start
+    private static PursuitDelayTable pending;
+
+    private final CampaignFleetAPI enemyFleet;
+    private final long timestamp;
+
+    private final String[] memberIds;
+    private final float[] delays;
+
+    // Inputs, kept for members missing from the table
+    private final int playerMinBurn;
+    private final boolean playerWasEmergencyBurning;
+    private final int burnModifier;
+    private final DelayCurve curve;
+
+    // Resolved state of every enemy fleet seen so far
+    private final Map<CampaignFleetAPI, SourceFleet> sourceFleets =
+        new IdentityHashMap<CampaignFleetAPI, SourceFleet>();
+
+    /**
+     * Burn data for one enemy campaign fleet, resolved once.
+     */
+    private class SourceFleet {
+        final FleetBurnProfile profile;
+        final boolean emergencyBurning;
+        final int effectivePlayerMinBurn;
+
+        SourceFleet(CampaignFleetAPI fleet) {
+            this.profile = fleet != null ? FleetBurnProfile.get(fleet) : null;
+            this.emergencyBurning = burnModifier != 0 && BurnSpeedCalculator.isEmergencyBurning(fleet);
+            this.effectivePlayerMinBurn = BurnSpeedCalculator.getEffectivePlayerBurn(
+                playerMinBurn, playerWasEmergencyBurning, emergencyBurning, burnModifier);
+        }
+
+        float delayFor(FleetMemberAPI member) {
+            int shipBurn = profile != null ? profile.getBurn(member) : BurnSpeedCalculator.getShipBurn(member);
+            return BurnSpeedCalculator.calculateDelay(
+                shipBurn, effectivePlayerMinBurn, DelayCurve.hullSize(member), curve);
+        }
+    }
+
+    private PursuitDelayTable(CampaignFleetAPI enemyFleet) {
+        this.enemyFleet = enemyFleet;
+        this.timestamp = currentTimestamp();
+
+        this.curve = DelayCurve.get();
+
+        // Detect player emergency burn (must do this before abilities deactivate)
+        boolean eburnEnabled = RetreatFeature.isEmergencyBurnModifierEnabled();
+        this.burnModifier = eburnEnabled ? RetreatFeature.getEmergencyBurnModifier() : 0;
+        this.playerWasEmergencyBurning = eburnEnabled &&
+            BurnSpeedCalculator.isEmergencyBurning(Global.getSector().getPlayerFleet());
+
+        // Calculate player's minimum burn level (slowest ship)
+        this.playerMinBurn = BurnSpeedCalculator.getPlayerFleetMinBurn();
+
+        // Resolve every fleet on the enemy side once, then every member against its own fleet
+        List<CampaignFleetAPI> fleets = getEnemySide(enemyFleet);
+        List<FleetMemberAPI> members = new ArrayList<FleetMemberAPI>();
+        List<SourceFleet> owners = new ArrayList<SourceFleet>();
+        int burningFleets = 0;
+        for (CampaignFleetAPI fleet : fleets) {
+            SourceFleet source = resolve(fleet);
+            if (source.emergencyBurning) burningFleets++;
+            for (FleetMemberAPI member : fleet.getFleetData().getMembersListCopy()) {
+                members.add(member);
+                owners.add(source);
+            }
+        }
+
+        String[] ids = new String[members.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = members.get(i).getId();
+        }
+        Arrays.sort(ids);
+
+        float[] values = new float[ids.length];
+        for (int i = 0; i < members.size(); i++) {
+            FleetMemberAPI member = members.get(i);
+            values[Arrays.binarySearch(ids, member.getId())] = owners.get(i).delayFor(member);
+        }
+
+        this.memberIds = ids;
+        this.delays = values;
+
+        if (log.isInfoEnabled()) {
+            log.info("TacticalRetreat: Delay table built for " + ids.length + " ships in " + fleets.size() +
+                     " fleets - player min burn " + playerMinBurn +
+                     (playerWasEmergencyBurning ? ", player eburn" : "") +
+                     ", " + burningFleets + " enemy fleets eburning");
+        }
+    }
+
+    /**
+     * All campaign fleets fighting against the player, starting with the primary enemy.
+     */
+    private static List<CampaignFleetAPI> getEnemySide(CampaignFleetAPI enemyFleet) {
+        List<CampaignFleetAPI> fleets = new ArrayList<CampaignFleetAPI>();
+        if (enemyFleet == null) return fleets;
+
+        fleets.add(enemyFleet);
+        BattleAPI battle = enemyFleet.getBattle();
+        if (battle != null && battle.getNonPlayerSide() != null) {
+            for (CampaignFleetAPI fleet : battle.getNonPlayerSide()) {
+                if (fleet != enemyFleet) {
+                    fleets.add(fleet);
+                }
+            }
+        }
+        return fleets;
+    }
+
+    private SourceFleet resolve(CampaignFleetAPI fleet) {
+        SourceFleet source = sourceFleets.get(fleet);
+        if (source == null) {
+            source = new SourceFleet(fleet);
+            sourceFleets.put(fleet, source);
+        }
+        return source;
+    }
+
+    private static long currentTimestamp() {
+        CampaignClockAPI clock = Global.getSector() != null ? Global.getSector().getClock() : null;
+        return clock != null ? clock.getTimestamp() : 0L;
+    }
+
+    /**
+     * Compute delays against the given enemy fleet right now.
+     */
+    static PursuitDelayTable compute(CampaignFleetAPI enemyFleet) {
+        return new PursuitDelayTable(enemyFleet);
+    }
+
+    /**
+     * Compute a table when the player picks the escape option, for the next combat to consume.
+     */
+    static void prepare(CampaignFleetAPI enemyFleet) {
+        pending = compute(enemyFleet);
+    }
+
+    /**
+     * Take the pending table if it was prepared for this enemy fleet in this engagement.
+     * Returns null otherwise; the pending table is cleared either way.
+     */
+    static PursuitDelayTable consume(CampaignFleetAPI enemyFleet) {
+        PursuitDelayTable table = pending;
+        pending = null;
+        if (table == null || enemyFleet == null) return null;
+        if (table.enemyFleet != enemyFleet || table.timestamp != currentTimestamp()) return null;
+        return table;
+    }
+
+    /**
+     * Delay in seconds for a member, or NO_ENTRY if it wasn't in the fleet when the table was built.
+     */
+    float getDelay(FleetMemberAPI member) {
+        int index = Arrays.binarySearch(memberIds, member.getId());
+        return index >= 0 ? delays[index] : NO_ENTRY;
+    }
+
+    /**
+     * Delay in seconds for any member - from the table, or computed against the member's own
+     * fleet for ships that joined after it was built.
+     */
+    float getOrComputeDelay(FleetMemberAPI member) {
+        float delay = getDelay(member);
+        if (delay != NO_ENTRY) return delay;
+
+        CampaignFleetAPI fleet = member.getFleetData() != null ? member.getFleetData().getFleet() : null;
+        return resolve(fleet != null ? fleet : enemyFleet).delayFor(member);
+    }
+}
@@ -0,0 +1,96 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+
+import java.util.List;
+
+/**
+ * Reinforcement delays the player would face from one hostile fleet if caught now.
+ *
+ * Computed with the same rules as the combat delays (BurnSpeedCalculator.calculateDelay
+ * on the DelayCurve against the player's E-burn adjusted minimum burn), but only summarized: how many ships
+ * would be delayed and the range of their delays. A forecast remembers the inputs it was
+ * computed from so PursuitForecaster can keep it until the fleet's composition, either
+ * side's emergency burn or the delay settings change.
+ */
+class PursuitForecast {
+
+    // Inputs the forecast was computed from
+    private final int numMembers;
+    private final int fleetPoints;
+    private final int effectivePlayerBurn;
+    private final DelayCurve curve;
+
+    private final int ships;
+    private final int delayedShips;
+    private final float shortestDelay;
+    private final float longestDelay;
+
+    private PursuitForecast(CampaignFleetAPI fleet, int effectivePlayerBurn, DelayCurve curve) {
+        this.numMembers = fleet.getNumMembersFast();
+        this.fleetPoints = fleet.getFleetPoints();
+        this.effectivePlayerBurn = effectivePlayerBurn;
+        this.curve = curve;
+
+        List<FleetMemberAPI> members = fleet.getFleetData().getMembersListCopy();
+        int delayed = 0;
+        float shortest = Float.MAX_VALUE;
+        float longest = 0f;
+        for (FleetMemberAPI member : members) {
+            int shipBurn = BurnSpeedCalculator.getShipBurn(member);
+            float delay = BurnSpeedCalculator.calculateDelay(
+                shipBurn, effectivePlayerBurn, DelayCurve.hullSize(member), curve);
+            if (delay <= 0f) continue;
+
+            delayed++;
+            if (delay < shortest) shortest = delay;
+            if (delay > longest) longest = delay;
+        }
+
+        this.ships = members.size();
+        this.delayedShips = delayed;
+        this.shortestDelay = delayed > 0 ? shortest : 0f;
+        this.longestDelay = longest;
+    }
+
+    /**
+     * Forecast a fleet's pursuit against the given effective player burn.
+     */
+    static PursuitForecast compute(CampaignFleetAPI fleet, int effectivePlayerBurn, DelayCurve curve) {
+        return new PursuitForecast(fleet, effectivePlayerBurn, curve);
+    }
+
+    /**
+     * True if this forecast is still valid for the fleet and inputs.
+     */
+    boolean matches(CampaignFleetAPI fleet, int effectivePlayerBurn, DelayCurve curve) {
+        return this.effectivePlayerBurn == effectivePlayerBurn
+            && this.curve == curve
+            && numMembers == fleet.getNumMembersFast()
+            && fleetPoints == fleet.getFleetPoints();
+    }
+
+    /**
+     * True if both forecasts would show the player the same thing.
+     */
+    boolean sameResult(PursuitForecast other) {
+        return ships == other.ships
+            && delayedShips == other.delayedShips
+            && shortestDelay == other.shortestDelay
+            && longestDelay == other.longestDelay;
+    }
+
+    /**
+     * One-line summary, e.g. "4 of 12 ships delayed 30-90s".
+     */
+    String describe() {
+        if (delayedShips == 0) {
+            return "all " + ships + " ships catch up immediately";
+        }
+        String range = shortestDelay == longestDelay
+            ? Math.round(longestDelay) + "s"
+            : Math.round(shortestDelay) + "-" + Math.round(longestDelay) + "s";
+        return delayedShips + " of " + ships + " ships delayed " + range;
+    }
+}
@@ -0,0 +1,144 @@
+package harshsector.features.retreat;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.util.Misc;
+import harshsector.core.FeatureLog;
+import harshsector.core.FrameBudget;
+import harshsector.core.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shows the pursuit delays the player would face from hostile fleets within sensor range.
+ *
+ * Nearby fleets come from a FleetGrid of the player's location instead of scanning every
+ * fleet in the system. Each scan's candidates are then forecast a few per frame (fewer
+ * when the shared FrameBudget runs out), and a fleet's PursuitForecast is recomputed only
+ * when its composition, either side's emergency burn or the delay settings change. A message is added to the campaign HUD when a hostile
+ * fleet is first forecast and whenever its forecast changes.
+ *
+ * Opt-in (harshsector_retreat_forecast). Registered as a transient script by RetreatFeature.
+ */
+public class PursuitForecaster implements EveryFrameScript {
+
+    private static final FeatureLog log = RetreatFeature.getLog(PursuitForecaster.class);
+
+    // Per-frame budget: fleets re-bucketed in the grid, and candidate fleets forecast
+    private static final int GRID_UPDATES_PER_FRAME = 16;
+    private static final int FORECASTS_PER_FRAME = 4;
+
+    // Seconds between scans of the grid for nearby fleets
+    private static final float SCAN_INTERVAL = 0.5f;
+
+    private static final Metrics.Counter RECOMPUTES = Metrics.counter("retreat.forecast.recomputes");
+    private static final Metrics.Histogram ADVANCE_NANOS = Metrics.histogram("retreat.forecast.advance.ns");
+
+    private final FleetGrid grid = new FleetGrid();
+
+    // Weak keys so despawned fleets can be collected
+    private final Map<CampaignFleetAPI, PursuitForecast> forecasts =
+        new WeakHashMap<CampaignFleetAPI, PursuitForecast>();
+    private final Map<CampaignFleetAPI, PursuitForecast> announced =
+        new WeakHashMap<CampaignFleetAPI, PursuitForecast>();
+
+    // Fleets found by the last scan, forecast FORECASTS_PER_FRAME at a time
+    private final List<CampaignFleetAPI> candidates = new ArrayList<CampaignFleetAPI>();
+    private int nextCandidate = 0;
+    private float sinceScan = SCAN_INTERVAL;
+
+    // Player-side inputs, resolved once per scan
+    private float scanRange;
+    private int playerMinBurn;
+    private boolean playerEmergencyBurning;
+    private int burnModifier;
+    private DelayCurve curve;
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
+    @Override
+    public boolean runWhilePaused() {
+        return false;
+    }
+
+    @Override
+    public void advance(float amount) {
+        if (!RetreatFeature.isTacticalRetreatEnabled() || !RetreatFeature.isPursuitForecastEnabled()) return;
+
+        CampaignFleetAPI playerFleet = Global.getSector().getPlayerFleet();
+        if (playerFleet == null) return;
+
+        FrameBudget budget = FrameBudget.CAMPAIGN;
+        long start = budget.start();
+
+        grid.refresh(playerFleet.getContainingLocation(), GRID_UPDATES_PER_FRAME);
+
+        // Start a new scan only once the previous one has been worked through
+        sinceScan += amount;
+        if (sinceScan >= SCAN_INTERVAL && nextCandidate >= candidates.size()) {
+            startScan(playerFleet);
+        }
+
+        int end = Math.min(nextCandidate + FORECASTS_PER_FRAME, candidates.size());
+        while (nextCandidate < end) {
+            forecast(playerFleet, candidates.get(nextCandidate++));
+            if (nextCandidate < end && !budget.hasTime(start)) {
+                budget.defer();
+                break;
+            }
+        }
+
+        ADVANCE_NANOS.record(budget.end(start));
+    }
+
+    private void startScan(CampaignFleetAPI playerFleet) {
+        sinceScan = 0f;
+        candidates.clear();
+        nextCandidate = 0;
+
+        scanRange = playerFleet.getSensorStrength();
+        grid.query(playerFleet.getLocation(), scanRange, candidates);
+
+        curve = DelayCurve.get();
+        boolean eburnEnabled = RetreatFeature.isEmergencyBurnModifierEnabled();
+        burnModifier = eburnEnabled ? RetreatFeature.getEmergencyBurnModifier() : 0;
+        playerEmergencyBurning = eburnEnabled && BurnSpeedCalculator.isEmergencyBurning(playerFleet);
+        playerMinBurn = BurnSpeedCalculator.getPlayerFleetMinBurn();
+    }
+
+    private void forecast(CampaignFleetAPI playerFleet, CampaignFleetAPI fleet) {
+        if (fleet == playerFleet || !fleet.isAlive()) return;
+        if (!fleet.isHostileTo(playerFleet) || !fleet.isVisibleToPlayerFleet()) return;
+        if (Misc.getDistance(playerFleet.getLocation(), fleet.getLocation()) > scanRange) return;
+
+        boolean emergencyBurning = burnModifier != 0 && BurnSpeedCalculator.isEmergencyBurning(fleet);
+        int effectivePlayerBurn = BurnSpeedCalculator.getEffectivePlayerBurn(
+            playerMinBurn, playerEmergencyBurning, emergencyBurning, burnModifier);
+
+        PursuitForecast forecast = forecasts.get(fleet);
+        if (forecast == null || !forecast.matches(fleet, effectivePlayerBurn, curve)) {
+            forecast = PursuitForecast.compute(fleet, effectivePlayerBurn, curve);
+            forecasts.put(fleet, forecast);
+            RECOMPUTES.increment();
+        }
+
+        PursuitForecast previous = announced.get(fleet);
+        if (previous == forecast) return;
+        announced.put(fleet, forecast);
+        if (previous != null && previous.sameResult(forecast)) return;
+
+        String message = "Pursuit forecast - " + fleet.getFullName() + ": " + forecast.describe();
+        Global.getSector().getCampaignUI().addMessage(message);
+        if (log.isDebugEnabled()) {
+            log.debug("PursuitForecaster: " + message + " (effective player burn " + effectivePlayerBurn +
+                      ", " + grid.size() + " fleets indexed)");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package harshsector.features.retreat;
+
+import java.util.Arrays;
+
+/**
+ * Enemy ships held back from reserves, ordered by release time.
+ *
+ * Ships are kept in two parallel arrays sorted by release time, with a head index
+ * pointing at the next ship due. Checking a frame with nothing due is one comparison
+ * against {@link #nextReleaseTime()}, and releasing ships only touches the released ones.
+ *
+ * Combat schedules FleetMemberAPIs; RetreatBalanceSimulator runs the same schedule over
+ * synthetic ships.
+ */
+class ReinforcementSchedule<T> {
+
+    // Ships arriving within this many seconds of the first ship of a wave count as one wave
+    private float waveWindow = 1.0f;
+
+    private Object[] members = new Object[16];
+    private float[] releaseTimes = new float[16];
+
+    // Entries [head, size) are still waiting; everything before head has been released
+    private int head = 0;
+    private int size = 0;
+
+    // Cached size of the next wave, or -1 when the head of the schedule has changed
+    private int nextWaveSize = -1;
+
+    /**
+     * Schedule a ship for release at the given combat time (seconds).
+     * Ships with equal release times keep the order they were added in.
+     */
+    void add(T member, float releaseTime) {
+        if (size == members.length) {
+            makeRoom();
+        }
+
+        // Find the first waiting entry that releases strictly later
+        int lo = head;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (releaseTimes[mid] <= releaseTime) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        System.arraycopy(members, lo, members, lo + 1, size - lo);
+        System.arraycopy(releaseTimes, lo, releaseTimes, lo + 1, size - lo);
+        members[lo] = member;
+        releaseTimes[lo] = releaseTime;
+        size++;
+        nextWaveSize = -1;
+    }
+
+    /**
+     * Reclaim released slots, or grow the arrays if nothing has been released yet.
+     */
+    private void makeRoom() {
+        if (head > 0) {
+            int waiting = size - head;
+            System.arraycopy(members, head, members, 0, waiting);
+            System.arraycopy(releaseTimes, head, releaseTimes, 0, waiting);
+            Arrays.fill(members, waiting, size, null);
+            head = 0;
+            size = waiting;
+        } else {
+            members = Arrays.copyOf(members, members.length * 2);
+            releaseTimes = Arrays.copyOf(releaseTimes, releaseTimes.length * 2);
+        }
+    }
+
+    /**
+     * Remove and return the next ship if it releases strictly before the given time, otherwise null.
+     */
+    T pollBefore(float time) {
+        if (head == size || releaseTimes[head] >= time) {
+            return null;
+        }
+        return poll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        T member = (T) members[head];
+        members[head] = null;
+        head++;
+        nextWaveSize = -1;
+        return member;
+    }
+
+    /**
+     * Release time of the next waiting ship, or Float.MAX_VALUE if none are waiting.
+     */
+    float nextReleaseTime() {
+        return head < size ? releaseTimes[head] : Float.MAX_VALUE;
+    }
+
+    /**
+     * Number of waiting ships due strictly before the given time.
+     * Only walks the matching prefix, so the cost is proportional to the result.
+     */
+    int countDueBefore(float time) {
+        int i = head;
+        while (i < size && releaseTimes[i] < time) {
+            i++;
+        }
+        return i - head;
+    }
+
+    /**
+     * Set how close together (in seconds) ships must arrive to count as one wave.
+     * A window of 0 makes every distinct release time its own wave.
+     */
+    void setWaveWindow(float seconds) {
+        waveWindow = Math.max(0f, seconds);
+        nextWaveSize = -1;
+    }
+
+    float getWaveWindow() {
+        return waveWindow;
+    }
+
+    /**
+     * Exclusive end of the next wave: ships releasing before this time belong to it.
+     * Float.MAX_VALUE if none are waiting.
+     */
+    float nextWaveEnd() {
+        if (head == size) return Float.MAX_VALUE;
+        float first = releaseTimes[head];
+        return waveWindow > 0 ? first + waveWindow : Math.nextUp(first);
+    }
+
+    /**
+     * Number of ships in the next wave (arriving within the wave window of the next ship).
+     * Recounted only after ships are added or released, not on every call.
+     */
+    int nextWaveSize() {
+        if (nextWaveSize < 0) {
+            nextWaveSize = countDueBefore(nextWaveEnd());
+        }
+        return nextWaveSize;
+    }
+
+    boolean isEmpty() {
+        return head == size;
+    }
+
+    /**
+     * Number of ships still waiting for release.
+     */
+    int remaining() {
+        return size - head;
+    }
+
+    void clear() {
+        Arrays.fill(members, 0, size, null);
+        head = 0;
+        size = 0;
+        nextWaveSize = -1;
+    }
+}
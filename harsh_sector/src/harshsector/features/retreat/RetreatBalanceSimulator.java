@@ -0,0 +1,481 @@
+package harshsector.features.retreat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Offline Monte-Carlo simulator for tuning the retreat delay settings.
+ *
+ * Generates synthetic pursuits from configurable fleet distributions, computes each enemy
+ * ship's delay with BurnSpeedCalculator on a DelayCurve (including the emergency burn
+ * modifier) and releases
+ * them through a ReinforcementSchedule exactly as TacticalRetreatPlugin does: when the next
+ * ship is due, everything within the wave window of it arrives together. Scenarios are split
+ * across all cores with fork-join.
+ *
+ * Reports, over all scenarios:
+ * - when the first delayed wave arrives
+ * - how many waves a battle has
+ * - the share of enemy DP on the field (deployed or in reserves) at each minute
+ *
+ * Runs headless - no game instance needed, only the mod jar, starfarer.api.jar and log4j:
+ *
+ *   ./simulate.sh --scenarios=1000000 --delay=30 --max-delay=180 --eburn-modifier=1
+ *
+ * Options (defaults in brackets):
+ *   --scenarios=N             [100000]
+ *   --seed=N                  [1]
+ *   --threads=N               [all cores]
+ *   --delay=S                 seconds per burn level [30]
+ *   --max-delay=S             [180]
+ *   --curve=NAME              linear, exponential or stepped [linear]
+ *   --growth=F                exponential curve growth per burn level [1.5]
+ *   --step=N                  stepped curve burn levels per step [2]
+ *   --hull-mult=F,D,C,CAP     delay multiplier per hull size [1,1,1,1]
+ *   --eburn-modifier=N        burn levels, 0 = off [1]
+ *   --wave-window=S           [1]
+ *   --player-ships=MIN-MAX    [3-12]
+ *   --enemy-ships=MIN-MAX     [5-25]
+ *   --player-mix=F,D,C,CAP    hull size weights [0.4,0.3,0.2,0.1]
+ *   --enemy-mix=F,D,C,CAP     [0.3,0.3,0.25,0.15]
+ *   --burns=F,D,C,CAP         burn range per hull size [9-11,8-10,7-9,6-8]
+ *   --dp=F,D,C,CAP            deployment points per hull size [5,10,18,35]
+ *   --player-eburn=P          chance the player was emergency burning [0.5]
+ *   --enemy-eburn=P           chance the enemy was emergency burning [0.3]
+ */
+public class RetreatBalanceSimulator {
+
+    // Hull sizes, in the order of the per-hull-size options (the DelayCurve hull size order)
+    private static final String[] HULL_SIZES = { "frigate", "destroyer", "cruiser", "capital" };
+
+    // Scenarios per fork-join leaf
+    private static final int LEAF_SIZE = 4096;
+
+    // Waves counted individually; more are counted in the last bucket
+    private static final int MAX_WAVES = 32;
+
+    // Resolution of the DP share distribution (buckets of 5%)
+    private static final int SHARE_BUCKETS = 20;
+
+    /**
+     * Simulation parameters, parsed from the command line.
+     */
+    static final class Config {
+        int scenarios = 100000;
+        long seed = 1L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        float delayPerBurn = 30f;
+        float maxDelay = 180f;
+        int curveType = DelayCurve.LINEAR;
+        float growth = 1.5f;
+        int step = 2;
+        float[] hullMults = { 1f, 1f, 1f, 1f };
+        DelayCurve curve;
+        int eburnModifier = 1;
+        float waveWindow = 1f;
+        int[] playerShips = { 3, 12 };
+        int[] enemyShips = { 5, 25 };
+        double[] playerMix = { 0.4, 0.3, 0.2, 0.1 };
+        double[] enemyMix = { 0.3, 0.3, 0.25, 0.15 };
+        int[][] burns = { { 9, 11 }, { 8, 10 }, { 7, 9 }, { 6, 8 } };
+        float[] dp = { 5f, 10f, 18f, 35f };
+        double playerEburn = 0.5;
+        double enemyEburn = 0.3;
+
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --option=value, got " + arg);
+                }
+                config.set(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+            config.validate();
+            return config;
+        }
+
+        private void set(String option, String value) {
+            if (option.equals("scenarios")) scenarios = Integer.parseInt(value);
+            else if (option.equals("seed")) seed = Long.parseLong(value);
+            else if (option.equals("threads")) threads = Integer.parseInt(value);
+            else if (option.equals("delay")) delayPerBurn = Float.parseFloat(value);
+            else if (option.equals("max-delay")) maxDelay = Float.parseFloat(value);
+            else if (option.equals("curve")) curveType = parseCurve(value);
+            else if (option.equals("growth")) growth = Float.parseFloat(value);
+            else if (option.equals("step")) step = Integer.parseInt(value);
+            else if (option.equals("hull-mult")) hullMults = parseFloats(value);
+            else if (option.equals("eburn-modifier")) eburnModifier = Integer.parseInt(value);
+            else if (option.equals("wave-window")) waveWindow = Float.parseFloat(value);
+            else if (option.equals("player-ships")) playerShips = parseRange(value);
+            else if (option.equals("enemy-ships")) enemyShips = parseRange(value);
+            else if (option.equals("player-mix")) playerMix = parseWeights(value);
+            else if (option.equals("enemy-mix")) enemyMix = parseWeights(value);
+            else if (option.equals("burns")) burns = parseRanges(value);
+            else if (option.equals("dp")) dp = parseFloats(value);
+            else if (option.equals("player-eburn")) playerEburn = Double.parseDouble(value);
+            else if (option.equals("enemy-eburn")) enemyEburn = Double.parseDouble(value);
+            else throw new IllegalArgumentException("Unknown option --" + option);
+        }
+
+        private void validate() {
+            if (scenarios <= 0) throw new IllegalArgumentException("--scenarios must be positive");
+            if (threads <= 0) throw new IllegalArgumentException("--threads must be positive");
+            if (delayPerBurn < 0 || maxDelay < 0) throw new IllegalArgumentException("Delays must not be negative");
+            if (playerShips[0] < 1 || enemyShips[0] < 1) throw new IllegalArgumentException("Fleets need at least 1 ship");
+
+            // Same validation as the game's settings, but fail instead of substituting values
+            List<String> problems = new ArrayList<String>();
+            curve = DelayCurve.compile(curveType, delayPerBurn, maxDelay, growth, step, hullMults, problems);
+            if (!problems.isEmpty()) throw new IllegalArgumentException("Invalid delay curve: " + problems);
+        }
+
+        private static int parseCurve(String value) {
+            if (value.equals("linear")) return DelayCurve.LINEAR;
+            if (value.equals("exponential")) return DelayCurve.EXPONENTIAL;
+            if (value.equals("stepped")) return DelayCurve.STEPPED;
+            throw new IllegalArgumentException("Unknown curve " + value);
+        }
+
+        private static int[] parseRange(String value) {
+            String[] parts = value.split("-");
+            int min = Integer.parseInt(parts[0].trim());
+            int max = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : min;
+            if (max < min) throw new IllegalArgumentException("Bad range " + value);
+            return new int[] { min, max };
+        }
+
+        private static int[][] parseRanges(String value) {
+            String[] parts = split(value);
+            int[][] ranges = new int[parts.length][];
+            for (int i = 0; i < parts.length; i++) {
+                ranges[i] = parseRange(parts[i]);
+            }
+            return ranges;
+        }
+
+        private static float[] parseFloats(String value) {
+            String[] parts = split(value);
+            float[] values = new float[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Float.parseFloat(parts[i].trim());
+            }
+            return values;
+        }
+
+        // Normalized to cumulative weights, for picking a hull size with one random number
+        private static double[] parseWeights(String value) {
+            String[] parts = split(value);
+            double[] weights = new double[parts.length];
+            double total = 0;
+            for (int i = 0; i < parts.length; i++) {
+                weights[i] = Double.parseDouble(parts[i].trim());
+                if (weights[i] < 0) throw new IllegalArgumentException("Negative weight in " + value);
+                total += weights[i];
+            }
+            if (total <= 0) throw new IllegalArgumentException("Weights must not all be 0: " + value);
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] /= total;
+            }
+            return weights;
+        }
+
+        private static String[] split(String value) {
+            String[] parts = value.split(",");
+            if (parts.length != HULL_SIZES.length) {
+                throw new IllegalArgumentException("Expected " + HULL_SIZES.length + " values, got " + value);
+            }
+            return parts;
+        }
+
+        int minutes() {
+            return (int) Math.ceil(maxDelay / 60f);
+        }
+    }
+
+    /**
+     * Distributions accumulated over a range of scenarios. Mergeable, so each fork-join
+     * leaf fills its own and they're combined on the way up.
+     */
+    static final class Results {
+        long scenarios;
+        long withDelays;
+
+        // Scenarios by second of the first delayed wave
+        final long[] firstWave;
+        // Scenarios by number of waves
+        final long[] waves = new long[MAX_WAVES + 1];
+        // Per minute: scenarios by share of enemy DP present, and the sum of shares
+        final long[][] shareByMinute;
+        final double[] shareSum;
+
+        Results(Config config) {
+            firstWave = new long[(int) Math.ceil(config.maxDelay) + 1];
+            shareByMinute = new long[config.minutes() + 1][SHARE_BUCKETS + 1];
+            shareSum = new double[config.minutes() + 1];
+        }
+
+        void merge(Results other) {
+            scenarios += other.scenarios;
+            withDelays += other.withDelays;
+            add(firstWave, other.firstWave);
+            add(waves, other.waves);
+            for (int m = 0; m < shareByMinute.length; m++) {
+                add(shareByMinute[m], other.shareByMinute[m]);
+                shareSum[m] += other.shareSum[m];
+            }
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+    }
+
+    /**
+     * Runs scenarios [from, to), splitting until ranges are LEAF_SIZE or smaller.
+     * Runs on fork-join workers, so it only uses the compiled Config - never Settings,
+     * FeatureLog or Metrics, which are game-thread only.
+     */
+    static final class SimulationTask extends RecursiveTask<Results> {
+        private static final long serialVersionUID = 1L;
+
+        private final Config config;
+        private final int from;
+        private final int to;
+
+        SimulationTask(Config config, int from, int to) {
+            this.config = config;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Results compute() {
+            if (to - from <= LEAF_SIZE) {
+                return new Simulator(config, from).run(to - from);
+            }
+            int mid = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(config, from, mid);
+            left.fork();
+            Results results = new SimulationTask(config, mid, to).compute();
+            results.merge(left.join());
+            return results;
+        }
+    }
+
+    /**
+     * Simulates scenarios on one thread, reusing its buffers between scenarios.
+     * Seeded from the first scenario index, so results don't depend on the thread count.
+     */
+    static final class Simulator {
+        private final Config config;
+        private final SplittableRandom random;
+        private final Results results;
+
+        private final ReinforcementSchedule<Integer> schedule = new ReinforcementSchedule<Integer>();
+        private final float[] shipDp;
+        private final float[] arrivingByMinute;
+
+        Simulator(Config config, int firstScenario) {
+            this.config = config;
+            this.random = new SplittableRandom(config.seed * 0x9E3779B97F4A7C15L + firstScenario);
+            this.results = new Results(config);
+            this.shipDp = new float[config.enemyShips[1]];
+            this.arrivingByMinute = new float[config.minutes() + 1];
+            schedule.setWaveWindow(config.waveWindow);
+        }
+
+        Results run(int count) {
+            for (int i = 0; i < count; i++) {
+                runScenario();
+            }
+            return results;
+        }
+
+        private void runScenario() {
+            // Player's slowest ship sets the pace
+            int playerMinBurn = Integer.MAX_VALUE;
+            int playerShips = between(config.playerShips);
+            for (int i = 0; i < playerShips; i++) {
+                playerMinBurn = Math.min(playerMinBurn, between(config.burns[pickHull(config.playerMix)]));
+            }
+
+            boolean playerEburning = random.nextDouble() < config.playerEburn;
+            boolean enemyEburning = random.nextDouble() < config.enemyEburn;
+            int effectivePlayerBurn = BurnSpeedCalculator.getEffectivePlayerBurn(
+                playerMinBurn, playerEburning, enemyEburning, config.eburnModifier);
+
+            // Enemy fleet: immediate ships count from minute 0, the rest go on the schedule
+            Arrays.fill(arrivingByMinute, 0f);
+            schedule.clear();
+            float totalDp = 0f;
+            int enemyShips = between(config.enemyShips);
+            for (int i = 0; i < enemyShips; i++) {
+                int hull = pickHull(config.enemyMix);
+                shipDp[i] = config.dp[hull];
+                totalDp += shipDp[i];
+
+                int shipBurn = between(config.burns[hull]);
+                float delay = BurnSpeedCalculator.calculateDelay(shipBurn, effectivePlayerBurn, hull, config.curve);
+                if (delay > 0) {
+                    schedule.add(i, delay);
+                } else {
+                    arrivingByMinute[0] += shipDp[i];
+                }
+            }
+
+            // Release in waves, as TacticalRetreatPlugin does
+            int waves = 0;
+            float firstWave = -1f;
+            while (!schedule.isEmpty()) {
+                float time = schedule.nextReleaseTime();
+                float waveEnd = schedule.nextWaveEnd();
+                int minute = (int) Math.ceil(time / 60f);
+                Integer ship;
+                while ((ship = schedule.pollBefore(waveEnd)) != null) {
+                    arrivingByMinute[minute] += shipDp[ship];
+                }
+                if (firstWave < 0) firstWave = time;
+                waves++;
+            }
+
+            results.scenarios++;
+            results.waves[Math.min(waves, MAX_WAVES)]++;
+            if (firstWave >= 0) {
+                results.withDelays++;
+                results.firstWave[Math.min((int) firstWave, results.firstWave.length - 1)]++;
+            }
+
+            float present = 0f;
+            for (int m = 0; m < arrivingByMinute.length; m++) {
+                present += arrivingByMinute[m];
+                double share = totalDp > 0 ? present / totalDp : 1.0;
+                results.shareByMinute[m][(int) (Math.min(share, 1.0) * SHARE_BUCKETS)]++;
+                results.shareSum[m] += share;
+            }
+        }
+
+        private int between(int[] range) {
+            return range[0] + random.nextInt(range[1] - range[0] + 1);
+        }
+
+        private int pickHull(double[] mix) {
+            double roll = random.nextDouble();
+            for (int i = 0; i < mix.length - 1; i++) {
+                roll -= mix[i];
+                if (roll < 0) return i;
+            }
+            return mix.length - 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("RetreatBalanceSimulator: " + e.getMessage());
+            System.err.println("See the class documentation for options.");
+            System.exit(2);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(config.threads);
+        Results results;
+        try {
+            results = pool.invoke(new SimulationTask(config, 0, config.scenarios));
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(report(config, results, seconds));
+    }
+
+    /**
+     * Render the results as plain text with CSV sections, for reading or pasting into a sheet.
+     */
+    static String report(Config config, Results results, double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT,
+            "# Harsh Sector retreat balance simulation%n" +
+            "# scenarios=%d seed=%d threads=%d elapsed=%.2fs%n" +
+            "# delay=%.1f max_delay=%.1f eburn_modifier=%d wave_window=%.1f%n" +
+            "# curve: %s%n" +
+            "# player_eburn=%.2f enemy_eburn=%.2f%n%n",
+            results.scenarios, config.seed, config.threads, seconds,
+            config.delayPerBurn, config.maxDelay, config.eburnModifier, config.waveWindow,
+            config.curve.describe(),
+            config.playerEburn, config.enemyEburn));
+
+        // First delayed wave, in 10 second rows
+        out.append(String.format(Locale.ROOT,
+            "## First delayed wave (%.1f%% of battles have one)%n",
+            percent(results.withDelays, results.scenarios)));
+        out.append(String.format(Locale.ROOT, "# p10=%ds p50=%ds p90=%ds%n",
+            percentile(results.firstWave, 0.10), percentile(results.firstWave, 0.50),
+            percentile(results.firstWave, 0.90)));
+        out.append("seconds,share\n");
+        for (int from = 0; from < results.firstWave.length; from += 10) {
+            long count = 0;
+            for (int s = from; s < Math.min(from + 10, results.firstWave.length); s++) {
+                count += results.firstWave[s];
+            }
+            if (count == 0) continue;
+            out.append(String.format(Locale.ROOT, "%d-%d,%.4f%n", from, from + 9, share(count, results.withDelays)));
+        }
+
+        out.append("\n## Waves per battle\nwaves,share\n");
+        for (int w = 0; w <= MAX_WAVES; w++) {
+            if (results.waves[w] == 0) continue;
+            out.append(String.format(Locale.ROOT, "%s,%.4f%n",
+                w == MAX_WAVES ? MAX_WAVES + "+" : String.valueOf(w), share(results.waves[w], results.scenarios)));
+        }
+
+        out.append("\n## Share of enemy DP present by minute\nminute,mean,p10,p50,p90\n");
+        for (int m = 0; m < results.shareByMinute.length; m++) {
+            long[] buckets = results.shareByMinute[m];
+            out.append(String.format(Locale.ROOT, "%d,%.3f,%.2f,%.2f,%.2f%n", m,
+                results.shareSum[m] / results.scenarios,
+                percentile(buckets, 0.10) / (double) SHARE_BUCKETS,
+                percentile(buckets, 0.50) / (double) SHARE_BUCKETS,
+                percentile(buckets, 0.90) / (double) SHARE_BUCKETS));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Index of the bucket containing the given percentile (0..1), or 0 if empty.
+     */
+    private static int percentile(long[] buckets, double percentile) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target && seen > 0) return i;
+        }
+        return buckets.length - 1;
+    }
+
+    private static double share(long count, long total) {
+        return total > 0 ? (double) count / total : 0.0;
+    }
+
+    private static double percent(long count, long total) {
+        return share(count, total) * 100.0;
+    }
+}
@@ -9,7 +9,8 @@ import com.fs.starfarer.api.campaign.SectorEntityToken;
 
 /**
  * Campaign plugin that provides our custom fleet interaction dialog.
- * This allows us to modify fleet interaction options (like removing story point escape).
+ * This allows us to modify fleet interaction options (like removing story point escape)
+ * and to prepare pursuit delays before a retreat battle starts.
  */
 public class RetreatCampaignPlugin extends BaseCampaignPlugin {
 
@@ -25,8 +26,8 @@ public class RetreatCampaignPlugin extends BaseCampaignPlugin {
 
     @Override
     public PluginPick<InteractionDialogPlugin> pickInteractionDialogPlugin(SectorEntityToken interactionTarget) {
-        // Only intercept fleet interactions when story point escape is disabled
-        if (!RetreatFeature.isStoryPointEscapeDisabled()) {
+        // Only intercept fleet interactions when our dialog has something to do
+        if (!RetreatFeature.isStoryPointEscapeDisabled() && !RetreatFeature.isTacticalRetreatEnabled()) {
             return null;
         }
 
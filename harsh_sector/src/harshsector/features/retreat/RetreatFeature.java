@@ -1,8 +1,8 @@
 package harshsector.features.retreat;
 
 import com.fs.starfarer.api.Global;
+import harshsector.core.FeatureLog;
 import harshsector.core.Settings;
-import org.apache.log4j.Logger;
 
 /**
  * Tactical Retreat Feature
@@ -12,30 +12,57 @@ import org.apache.log4j.Logger;
  * enemies take longer to arrive.
  *
  * Components:
- * - TacticalRetreatPlugin: Combat plugin that delays enemy reinforcements
+ * - TacticalRetreatPlugin: Combat plugin that delays enemy reinforcements (registered in settings.json)
+ * - ReinforcementSchedule: Delayed enemy ships ordered by release time
  * - BurnSpeedCalculator: Utility for calculating burn speeds and delays
+ * - DelayCurve: Delay per burn difference and hull size, compiled from the curve settings
+ * - FleetBurnProfile: Cached per-fleet burn levels
+ * - PursuitDelayTable: Per-member delays computed when the player tries to disengage
+ * - PursuitForecaster: Campaign HUD forecast of delays from nearby hostile fleets (opt-in)
+ * - FleetGrid, PursuitForecast: Spatial index and cached per-fleet forecasts for the forecaster
+ * - RetreatBalanceSimulator: Offline command-line tool for tuning the delay settings (simulate.sh)
  * - RetreatCampaignPlugin: Provides custom fleet interaction dialog
- * - RetreatFleetDialog: Removes story point escape option
+ * - RetreatFleetDialog: Removes story point escape option, prepares the delay table
  */
 public class RetreatFeature {
 
-    private static final Logger log = Global.getLogger(RetreatFeature.class);
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey TACTICAL_RETREAT_ENABLED =
+        Settings.booleanKey("harshsector_retreat_enabled", true);
+    private static final Settings.FloatKey RETREAT_DELAY_PER_BURN =
+        Settings.floatKey("harshsector_retreat_delay", 30.0f);
+    private static final Settings.FloatKey RETREAT_MAX_DELAY =
+        Settings.floatKey("harshsector_retreat_max_delay", 180.0f);
+    private static final Settings.IntKey DELAY_CURVE =
+        Settings.intKey("harshsector_retreat_curve", DelayCurve.LINEAR);
+    private static final Settings.FloatKey DELAY_CURVE_GROWTH =
+        Settings.floatKey("harshsector_retreat_curve_growth", 1.5f);
+    private static final Settings.IntKey DELAY_CURVE_STEP =
+        Settings.intKey("harshsector_retreat_curve_step", 2);
+    private static final Settings.FloatKey FRIGATE_DELAY_MULT =
+        Settings.floatKey("harshsector_retreat_mult_frigate", 1.0f);
+    private static final Settings.FloatKey DESTROYER_DELAY_MULT =
+        Settings.floatKey("harshsector_retreat_mult_destroyer", 1.0f);
+    private static final Settings.FloatKey CRUISER_DELAY_MULT =
+        Settings.floatKey("harshsector_retreat_mult_cruiser", 1.0f);
+    private static final Settings.FloatKey CAPITAL_DELAY_MULT =
+        Settings.floatKey("harshsector_retreat_mult_capital", 1.0f);
+    private static final Settings.FloatKey WAVE_WINDOW =
+        Settings.floatKey("harshsector_retreat_wave_window", 1.0f);
+    private static final Settings.BooleanKey WATCH_RESERVES =
+        Settings.booleanKey("harshsector_retreat_watch_reserves", false);
+    private static final Settings.BooleanKey FORECAST_ENABLED =
+        Settings.booleanKey("harshsector_retreat_forecast", false);
+    private static final Settings.BooleanKey STORY_ESCAPE_DISABLED =
+        Settings.booleanKey("harshsector_story_escape_disabled", true);
+    private static final Settings.BooleanKey EBURN_MODIFIER_ENABLED =
+        Settings.booleanKey("harshsector_eburn_enabled", true);
+    private static final Settings.IntKey EBURN_MODIFIER_AMOUNT =
+        Settings.intKey("harshsector_eburn_modifier", 1);
+    private static final Settings.IntKey LOG_LEVEL =
+        Settings.intKey("harshsector_log_retreat", FeatureLog.WARN);
 
-    // Setting IDs (must match LunaSettings.csv)
-    private static final String TACTICAL_RETREAT_ENABLED_ID = "harshsector_retreat_enabled";
-    private static final String RETREAT_DELAY_PER_BURN_ID = "harshsector_retreat_delay";
-    private static final String RETREAT_MAX_DELAY_ID = "harshsector_retreat_max_delay";
-    private static final String STORY_ESCAPE_DISABLED_ID = "harshsector_story_escape_disabled";
-    private static final String EBURN_MODIFIER_ENABLED_ID = "harshsector_eburn_enabled";
-    private static final String EBURN_MODIFIER_AMOUNT_ID = "harshsector_eburn_modifier";
-
-    // Default values
-    private static final boolean DEFAULT_TACTICAL_RETREAT_ENABLED = true;
-    private static final float DEFAULT_RETREAT_DELAY_PER_BURN = 30.0f;
-    private static final float DEFAULT_RETREAT_MAX_DELAY = 180.0f;
-    private static final boolean DEFAULT_STORY_ESCAPE_DISABLED = true;
-    private static final boolean DEFAULT_EBURN_MODIFIER_ENABLED = true;
-    private static final int DEFAULT_EBURN_MODIFIER_AMOUNT = 1;
+    private static final FeatureLog log = getLog(RetreatFeature.class);
 
     /**
      * Register the retreat feature with the game.
@@ -44,6 +71,29 @@ public class RetreatFeature {
     public static void register() {
         log.info("Harsh Sector: Registering Retreat feature");
         Global.getSector().registerPlugin(new RetreatCampaignPlugin());
+        FleetBurnProfile.register();
+
+        // Report invalid delay curve settings now rather than in the first retreat battle
+        DelayCurve.get();
+
+        if (isTacticalRetreatEnabled() && isPursuitForecastEnabled()) {
+            Global.getSector().addTransientScript(new PursuitForecaster());
+        }
+    }
+
+    /**
+     * Create a logger for a class in this feature, using the feature's log level setting.
+     */
+    static FeatureLog getLog(Class<?> owner) {
+        return FeatureLog.get(owner, LOG_LEVEL);
+    }
+
+    /**
+     * Check if any part of the feature is enabled - tactical retreat or the story point
+     * escape removal.
+     */
+    public static boolean isEnabled() {
+        return isTacticalRetreatEnabled() || isStoryPointEscapeDisabled();
     }
 
     /**
@@ -53,7 +103,7 @@ public class RetreatFeature {
      * When disabled: retreat battles work like vanilla
      */
     public static boolean isTacticalRetreatEnabled() {
-        return Settings.getBoolean(TACTICAL_RETREAT_ENABLED_ID, DEFAULT_TACTICAL_RETREAT_ENABLED);
+        return TACTICAL_RETREAT_ENABLED.get();
     }
 
     /**
@@ -63,7 +113,7 @@ public class RetreatFeature {
      * and an enemy ship, that enemy is delayed by this many seconds.
      */
     public static float getRetreatDelayPerBurn() {
-        return Settings.getFloat(RETREAT_DELAY_PER_BURN_ID, DEFAULT_RETREAT_DELAY_PER_BURN);
+        return RETREAT_DELAY_PER_BURN.get();
     }
 
     /**
@@ -72,7 +122,67 @@ public class RetreatFeature {
      * No enemy ship will be delayed more than this, regardless of burn speed difference.
      */
     public static float getRetreatMaxDelay() {
-        return Settings.getFloat(RETREAT_MAX_DELAY_ID, DEFAULT_RETREAT_MAX_DELAY);
+        return RETREAT_MAX_DELAY.get();
+    }
+
+    /**
+     * Get the shape of the delay curve (DelayCurve.LINEAR, EXPONENTIAL or STEPPED).
+     */
+    public static int getDelayCurve() {
+        return DELAY_CURVE.get();
+    }
+
+    /**
+     * Get how much longer each further burn level delays a ship on the exponential curve.
+     */
+    public static float getDelayCurveGrowth() {
+        return DELAY_CURVE_GROWTH.get();
+    }
+
+    /**
+     * Get how many burn levels make one step of the stepped curve.
+     */
+    public static int getDelayCurveStep() {
+        return DELAY_CURVE_STEP.get();
+    }
+
+    /**
+     * Get the delay multipliers for frigates, destroyers, cruisers and capitals, in that order.
+     */
+    public static float[] getHullDelayMultipliers() {
+        return new float[] {
+            FRIGATE_DELAY_MULT.get(), DESTROYER_DELAY_MULT.get(), CRUISER_DELAY_MULT.get(), CAPITAL_DELAY_MULT.get()
+        };
+    }
+
+    /**
+     * Get the reinforcement wave window in seconds.
+     *
+     * Delayed ships arriving within this many seconds of the first ship of a wave are
+     * released to the enemy together on one frame. 0 releases each ship individually.
+     */
+    public static float getWaveWindow() {
+        return WAVE_WINDOW.get();
+    }
+
+    /**
+     * Check if ships joining the enemy reserves mid-battle are delayed too.
+     *
+     * When enabled: reserves are checked once a second and new ships are delayed like the rest
+     * When disabled: only ships in reserves when combat starts are delayed (the default)
+     */
+    public static boolean isReserveWatchEnabled() {
+        return WATCH_RESERVES.get();
+    }
+
+    /**
+     * Check if the campaign pursuit forecast is enabled.
+     *
+     * When enabled: hostile fleets within sensor range get a HUD message with the delays they'd face
+     * When disabled: no forecasts (the default)
+     */
+    public static boolean isPursuitForecastEnabled() {
+        return FORECAST_ENABLED.get();
     }
 
     /**
@@ -82,7 +192,7 @@ public class RetreatFeature {
      * When disabled: story point escape works like vanilla
      */
     public static boolean isStoryPointEscapeDisabled() {
-        return Settings.getBoolean(STORY_ESCAPE_DISABLED_ID, DEFAULT_STORY_ESCAPE_DISABLED);
+        return STORY_ESCAPE_DISABLED.get();
     }
 
     /**
@@ -92,7 +202,7 @@ public class RetreatFeature {
      * When disabled: emergency burn has no effect on pursuit
      */
     public static boolean isEmergencyBurnModifierEnabled() {
-        return Settings.getBoolean(EBURN_MODIFIER_ENABLED_ID, DEFAULT_EBURN_MODIFIER_ENABLED);
+        return EBURN_MODIFIER_ENABLED.get();
     }
 
     /**
@@ -102,6 +212,6 @@ public class RetreatFeature {
      * Enemy emergency burning: -modifier to effective burn (enemies deploy faster)
      */
     public static int getEmergencyBurnModifier() {
-        return Settings.getInt(EBURN_MODIFIER_AMOUNT_ID, DEFAULT_EBURN_MODIFIER_AMOUNT);
+        return EBURN_MODIFIER_AMOUNT.get();
     }
 }
@@ -2,29 +2,42 @@ package harshsector.features.retreat;
 
 import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.impl.campaign.FleetInteractionDialogPluginImpl;
-import org.apache.log4j.Logger;
+import harshsector.core.FeatureLog;
 
 /**
- * Custom fleet interaction dialog that removes the story point escape option.
+ * Custom fleet interaction dialog for the retreat feature.
  *
  * The vanilla game allows spending 1 story point to "Disengage by executing
  * a series of special maneuvers" which guarantees escape. This plugin removes
  * that option to make combat encounters more consequential.
+ *
+ * When the player attempts to disengage, it also computes the pursuit delay table
+ * for the coming battle, so TacticalRetreatPlugin doesn't have to at combat start.
  */
 public class RetreatFleetDialog extends FleetInteractionDialogPluginImpl {
 
-    private static final Logger log = Global.getLogger(RetreatFleetDialog.class);
+    private static final FeatureLog log = RetreatFeature.getLog(RetreatFleetDialog.class);
 
     @Override
     public void optionSelected(String optionText, Object optionData) {
+        // Player is trying to escape - capture burn and emergency burn state now,
+        // before the parent moves the encounter on
+        if (optionData == OptionId.ATTEMPT_TO_DISENGAGE && RetreatFeature.isTacticalRetreatEnabled()) {
+            // The delays are fixed from here on - read both fleets' burn levels afresh
+            FleetBurnProfile.invalidate(Global.getSector().getPlayerFleet());
+            FleetBurnProfile.invalidate(this.otherFleet);
+            PursuitDelayTable.prepare(this.otherFleet);
+        }
+
         // Let the parent handle the option first (this populates UI, handles state, etc.)
         super.optionSelected(optionText, optionData);
 
         // After parent processes, remove the CLEAN_DISENGAGE option if it exists
         // This effectively disables the story point escape mechanic
-        if (this.options != null && this.options.hasOption(OptionId.CLEAN_DISENGAGE)) {
+        if (RetreatFeature.isStoryPointEscapeDisabled() &&
+                this.options != null && this.options.hasOption(OptionId.CLEAN_DISENGAGE)) {
             this.options.removeOption(OptionId.CLEAN_DISENGAGE);
-            log.info("HarshSector: Removed story point escape option (CLEAN_DISENGAGE)");
+            log.debug("HarshSector: Removed story point escape option (CLEAN_DISENGAGE)");
         }
     }
 }
@@ -1,8 +1,6 @@
 package harshsector.features.retreat;
 
 import com.fs.starfarer.api.Global;
-import com.fs.starfarer.api.campaign.CampaignFleetAPI;
-import com.fs.starfarer.api.characters.AbilityPlugin;
 import com.fs.starfarer.api.combat.BattleCreationContext;
 import com.fs.starfarer.api.combat.CombatEngineAPI;
 import com.fs.starfarer.api.combat.CombatFleetManagerAPI;
@@ -10,16 +8,17 @@ import com.fs.starfarer.api.combat.EveryFrameCombatPlugin;
 import com.fs.starfarer.api.combat.ViewportAPI;
 import com.fs.starfarer.api.fleet.FleetGoal;
 import com.fs.starfarer.api.fleet.FleetMemberAPI;
-import com.fs.starfarer.api.impl.campaign.ids.Abilities;
 import com.fs.starfarer.api.input.InputEventAPI;
 import com.fs.starfarer.api.mission.FleetSide;
 
-import org.apache.log4j.Logger;
+import harshsector.core.FeatureLog;
+import harshsector.core.FrameBudget;
+import harshsector.core.Metrics;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * Combat plugin that delays enemy reinforcements in retreat battles based on burn speed.
@@ -27,52 +26,97 @@ import java.util.Map;
  * When the player is fleeing (pursuit battle), enemy ships with lower burn speed
  * than the player's slowest ship are delayed from entering combat.
  *
- * Delay formula: (playerMinBurn - enemyShipBurn) * delayPerBurnLevel seconds
+ * Delay: the DelayCurve value for (playerMinBurn - enemyShipBurn) and the ship's hull size -
+ * by default (playerMinBurn - enemyShipBurn) * delayPerBurnLevel seconds
+ *
+ * Registered for every combat in settings.json, so the delayed ships are taken out of the
+ * enemy reserves in init, before the enemy AI's first deployment. Other battles (simulations,
+ * normal attacks) only pay for init: the plugin allocates nothing for them and removes itself
+ * from the engine on its first frame. A retreat battle's plugin removes itself once the last
+ * delayed ship has been released, unless it's watching reserves.
+ *
+ * With harshsector_retreat_watch_reserves on (it's off by default), ships added to enemy
+ * reserves after combat starts (by other mods or reinforcement scripts) are delayed by the
+ * same rules. Once a second the plugin compares the reserve count with the last check's plus
+ * the ships it released since, and only if there are more ships than that looks each reserve
+ * ship up in an identity set of ships already seen; new ones are scheduled from the time
+ * they're found. Deployments and released waves don't trigger that walk. Arrivals hidden in
+ * the count (a ship deployed as another arrives) are caught by a full check every few
+ * seconds. A watching plugin stays attached for the whole battle; otherwise it detaches as
+ * soon as the schedule is empty.
+ *
+ * A due wave is always released whole on the frame it comes due, and the release isn't
+ * charged to FrameBudget.COMBAT. Only the reserve checks and the status text are timed
+ * against the budget: reserve checks wait for a frame with time left, and while the budget is
+ * degraded the status text is refreshed a few times a second instead of every frame.
  */
 public class TacticalRetreatPlugin implements EveryFrameCombatPlugin {
 
-    private static final Logger log = Global.getLogger(TacticalRetreatPlugin.class);
+    private static final FeatureLog log = RetreatFeature.getLog(TacticalRetreatPlugin.class);
 
-    // Status key for the UI indicator
+    private static final Metrics.Histogram BUILD_SCHEDULE_NANOS = Metrics.histogram("retreat.build_delay_schedule.ns");
+    private static final Metrics.Histogram ADVANCE_NANOS = Metrics.histogram("retreat.advance.ns");
+    private static final Metrics.Counter DETACHED = Metrics.counter("retreat.plugin.detached");
+    private static final Metrics.Counter LATE_ARRIVALS = Metrics.counter("retreat.late_arrivals");
+
+    // Status key and title for the UI indicator
     private static final Object STATUS_KEY = new Object();
+    private static final String STATUS_TITLE = "Enemy Reinforcements";
+
+    // Seconds between status text refreshes while the frame budget is degraded
+    private static final float DEGRADED_STATUS_INTERVAL = 0.25f;
+
+    // Seconds between reserve count checks, and between full checks of the reserves
+    private static final float RESERVE_CHECK_INTERVAL = 1f;
+    private static final float FULL_RESERVE_CHECK_INTERVAL = 5f;
 
     private CombatEngineAPI engine;
     private boolean initialized = false;
     private boolean isRetreatBattle = false;
-    private int playerMinBurn = 0;
     private float elapsedTime = 0f;
-    private boolean playerWasEmergencyBurning = false;
-    private boolean enemyWasEmergencyBurning = false;
 
-    // Ships we've removed from reserves, waiting to deploy
-    private List<DelayedShip> delayedShips = new ArrayList<DelayedShip>();
-
-    // Track which ships have already been deployed
-    private Map<String, Boolean> deployedShips = new HashMap<String, Boolean>();
-
-    /**
-     * Simple holder for a ship and its deployment delay.
-     */
-    private static class DelayedShip {
-        FleetMemberAPI member;
-        float delaySeconds;
-
-        DelayedShip(FleetMemberAPI member, float delaySeconds) {
-            this.member = member;
-            this.delaySeconds = delaySeconds;
-        }
-    }
+    // Ships we've removed from reserves, waiting to deploy (ordered by release time).
+    // Only allocated in retreat battles.
+    private ReinforcementSchedule<FleetMemberAPI> delayedShips;
+
+    // Reserve watching - every enemy ship seen in reserves so far, and the delay table for new ones.
+    // Only allocated in retreat battles with watching enabled.
+    private Set<FleetMemberAPI> seenReserves;
+    private PursuitDelayTable delayTable;
+    private int lastReserveCount = 0;
+    private int releasedSinceReserveCheck = 0;
+    private float sinceReserveCheck = 0f;
+    private float sinceFullReserveCheck = 0f;
+
+    // Status indicator state - the text is only rebuilt when what it shows changes
+    private String statusIcon;
+    private String statusData;
+    private int shownSeconds = -1;
+    private int shownWaveSize = -1;
+    private int shownTotal = -1;
+    private float sinceStatusRefresh = 0f;
 
     @Override
     public void init(CombatEngineAPI engine) {
+        // Schedule each battle once - a second init would lose the ships already taken from reserves
+        if (engine == this.engine) return;
+
         this.engine = engine;
         this.initialized = false;
         this.isRetreatBattle = false;
         this.elapsedTime = 0f;
-        this.delayedShips.clear();
-        this.deployedShips.clear();
-        this.playerWasEmergencyBurning = false;
-        this.enemyWasEmergencyBurning = false;
+        this.delayedShips = null;
+        this.seenReserves = null;
+        this.delayTable = null;
+        this.lastReserveCount = 0;
+        this.releasedSinceReserveCheck = 0;
+        this.sinceReserveCheck = 0f;
+        this.sinceFullReserveCheck = 0f;
+        this.statusData = null;
+        this.shownSeconds = -1;
+        this.shownWaveSize = -1;
+        this.shownTotal = -1;
+        this.sinceStatusRefresh = 0f;
 
         // Skip if in simulation/mission
         if (engine.isSimulation()) {
@@ -96,55 +140,43 @@ public class TacticalRetreatPlugin implements EveryFrameCombatPlugin {
         // Check if player is retreating (FleetGoal.ESCAPE)
         FleetGoal playerGoal = context.getPlayerGoal();
         if (playerGoal != FleetGoal.ESCAPE) {
-            log.info("TacticalRetreat: Player goal is " + playerGoal + ", not ESCAPE - skipping");
+            if (log.isInfoEnabled()) {
+                log.info("TacticalRetreat: Player goal is " + playerGoal + ", not ESCAPE - skipping");
+            }
             return;
         }
 
         isRetreatBattle = true;
         log.info("TacticalRetreat: Retreat battle detected! Player is fleeing.");
 
-        // Detect emergency burn status for both fleets (must do this early, before abilities deactivate)
-        detectEmergencyBurnStatus(context);
-
-        // Calculate player's minimum burn level (slowest ship)
-        playerMinBurn = BurnSpeedCalculator.getPlayerFleetMinBurn();
-        log.info("TacticalRetreat: Player min burn = " + playerMinBurn);
+        statusIcon = Global.getSettings().getSpriteName("ui", "icon_tactical_cr_penalty");
 
-        // Build delay schedule and remove slow ships from reserves
-        buildDelaySchedule();
+        // Ships arriving within this window of each other are shown and released as one wave
+        delayedShips = new ReinforcementSchedule<FleetMemberAPI>();
+        delayedShips.setWaveWindow(RetreatFeature.getWaveWindow());
 
-        initialized = true;
-        log.info("TacticalRetreat: Initialized with " + delayedShips.size() + " ships scheduled for delayed deployment");
-    }
-
-    /**
-     * Detect if either fleet was emergency burning when the battle started.
-     * This affects pursuit delay calculations.
-     */
-    private void detectEmergencyBurnStatus(BattleCreationContext context) {
-        if (!RetreatFeature.isEmergencyBurnModifierEnabled()) {
-            log.info("TacticalRetreat: Emergency burn modifier disabled in settings");
-            return;
+        // Use the delay table prepared when the player tried to disengage; compute it here
+        // only if the battle didn't come through our dialog
+        PursuitDelayTable table = PursuitDelayTable.consume(context.getOtherFleet());
+        if (table == null) {
+            log.info("TacticalRetreat: No precomputed delay table, computing at combat start");
+            table = PursuitDelayTable.compute(context.getOtherFleet());
         }
 
-        // Check player emergency burn
-        CampaignFleetAPI playerFleet = Global.getSector().getPlayerFleet();
-        if (playerFleet != null) {
-            AbilityPlugin playerEburn = playerFleet.getAbility(Abilities.EMERGENCY_BURN);
-            if (playerEburn != null && playerEburn.isActiveOrInProgress()) {
-                playerWasEmergencyBurning = true;
-                log.info("TacticalRetreat: Player was emergency burning when caught!");
-            }
+        // Keep the table for ships that join the reserves later
+        if (RetreatFeature.isReserveWatchEnabled()) {
+            seenReserves = Collections.newSetFromMap(new IdentityHashMap<FleetMemberAPI, Boolean>());
+            delayTable = table;
         }
 
-        // Check enemy emergency burn
-        CampaignFleetAPI enemyFleet = context.getOtherFleet();
-        if (enemyFleet != null) {
-            AbilityPlugin enemyEburn = enemyFleet.getAbility(Abilities.EMERGENCY_BURN);
-            if (enemyEburn != null && enemyEburn.isActiveOrInProgress()) {
-                enemyWasEmergencyBurning = true;
-                log.info("TacticalRetreat: Enemy was emergency burning when catching player!");
-            }
+        // Build delay schedule and remove slow ships from reserves
+        long start = System.nanoTime();
+        buildDelaySchedule(table);
+        BUILD_SCHEDULE_NANOS.record(System.nanoTime() - start);
+
+        initialized = true;
+        if (log.isInfoEnabled()) {
+            log.info("TacticalRetreat: Initialized with " + delayedShips.remaining() + " ships scheduled for delayed deployment");
         }
     }
 
@@ -152,96 +184,169 @@ public class TacticalRetreatPlugin implements EveryFrameCombatPlugin {
      * Build a schedule of which enemy ships should be delayed.
      * Removes delayed ships from reserves so the AI won't deploy them.
      */
-    private void buildDelaySchedule() {
+    private void buildDelaySchedule(PursuitDelayTable table) {
         CombatFleetManagerAPI enemyManager = engine.getFleetManager(FleetSide.ENEMY);
         if (enemyManager == null) {
             log.warn("TacticalRetreat: No enemy fleet manager");
             return;
         }
 
-        float delayPerBurn = RetreatFeature.getRetreatDelayPerBurn();
-        float maxDelay = RetreatFeature.getRetreatMaxDelay();
+        // Get all enemy fleet members in reserves (make a copy since we'll modify)
+        List<FleetMemberAPI> reserves = enemyManager.getReservesCopy();
+        if (log.isInfoEnabled()) {
+            log.info("TacticalRetreat: Enemy has " + reserves.size() + " ships in reserves");
+        }
 
-        // Calculate effective player min burn with emergency burn modifier
-        int effectivePlayerMinBurn = playerMinBurn;
-        int burnModifier = RetreatFeature.getEmergencyBurnModifier();
+        for (FleetMemberAPI member : reserves) {
+            if (seenReserves != null) {
+                seenReserves.add(member);
+            }
+            float delay = table.getOrComputeDelay(member);
 
-        // Player emergency burning = enemies delayed longer (player was faster)
-        if (playerWasEmergencyBurning) {
-            effectivePlayerMinBurn += burnModifier;
-            log.info("TacticalRetreat: Player eburn bonus: +" + burnModifier + " effective burn");
-        }
-        // Enemy emergency burning = enemies deploy faster (they were also boosting)
-        if (enemyWasEmergencyBurning) {
-            effectivePlayerMinBurn -= burnModifier;
-            log.info("TacticalRetreat: Enemy eburn penalty: -" + burnModifier + " effective burn");
+            if (delay > 0) {
+                // This ship is too slow - remove from reserves and track for delayed deployment
+                enemyManager.removeFromReserves(member);
+                delayedShips.add(member, delay);
+                if (log.isDebugEnabled()) {
+                    log.debug("TacticalRetreat: " + member.getShipName() +
+                              " removed from reserves, will deploy after " + delay + "s");
+                }
+            } else if (log.isDebugEnabled()) {
+                log.debug("TacticalRetreat: " + member.getShipName() + " - no delay (fast enough to catch up)");
+            }
         }
+        lastReserveCount = reserves.size() - delayedShips.remaining();
+    }
 
-        if (effectivePlayerMinBurn != playerMinBurn) {
-            log.info("TacticalRetreat: Effective player min burn = " + effectivePlayerMinBurn +
-                     " (base: " + playerMinBurn + ")");
+    /**
+     * Schedule ships that joined the enemy reserves since the last check.
+     *
+     * Copies the reserves at most once per RESERVE_CHECK_INTERVAL. Every reserve ship is only
+     * checked against the identity set when the reserves grew by more than the ships this
+     * plugin released since the last check, or when a full check is due; only ships missing
+     * from the set are looked up in the delay table.
+     */
+    private void watchReserves(float amount, FrameBudget budget, long start) {
+        sinceReserveCheck += amount;
+        sinceFullReserveCheck += amount;
+        if (sinceReserveCheck < RESERVE_CHECK_INTERVAL) return;
+        if (!budget.hasTime(start)) {
+            budget.defer();
+            return;
         }
+        sinceReserveCheck = 0f;
+
+        CombatFleetManagerAPI enemyManager = engine.getFleetManager(FleetSide.ENEMY);
+        if (enemyManager == null) return;
 
-        // Get all enemy fleet members in reserves (make a copy since we'll modify)
         List<FleetMemberAPI> reserves = enemyManager.getReservesCopy();
-        log.info("TacticalRetreat: Enemy has " + reserves.size() + " ships in reserves");
+        int count = reserves.size();
+
+        // Our own released ships are already in the set, and deployments only shrink the reserves
+        int accountedFor = lastReserveCount + releasedSinceReserveCheck;
+        releasedSinceReserveCheck = 0;
+        if (count <= accountedFor && sinceFullReserveCheck < FULL_RESERVE_CHECK_INTERVAL) {
+            lastReserveCount = count;
+            return;
+        }
+        sinceFullReserveCheck = 0f;
 
         for (FleetMemberAPI member : reserves) {
-            int shipBurn = BurnSpeedCalculator.getShipBurn(member);
-            float delay = BurnSpeedCalculator.calculateDelay(shipBurn, effectivePlayerMinBurn, delayPerBurn, maxDelay);
+            if (!seenReserves.add(member)) continue;
 
+            LATE_ARRIVALS.increment();
+            float delay = delayTable.getOrComputeDelay(member);
             if (delay > 0) {
-                // This ship is too slow - remove from reserves and track for delayed deployment
                 enemyManager.removeFromReserves(member);
-                delayedShips.add(new DelayedShip(member, delay));
-                log.info("TacticalRetreat: " + member.getShipName() + " (burn " + shipBurn +
-                         ") removed from reserves, will deploy after " + delay + "s");
-            } else {
-                log.info("TacticalRetreat: " + member.getShipName() + " (burn " + shipBurn +
-                         ") - no delay (fast enough to catch up)");
+                delayedShips.add(member, elapsedTime + delay);
+                count--;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("TacticalRetreat: [" + String.format("%.1f", elapsedTime) + "s] " + member.getShipName() +
+                          " joined reserves" + (delay > 0 ? ", will deploy after " + delay + "s" : " - no delay"));
             }
         }
+        lastReserveCount = count;
     }
 
     @Override
     public void advance(float amount, List<InputEventAPI> events) {
-        if (engine == null || engine.isPaused()) return;
-        if (!initialized || !isRetreatBattle) return;
+        if (engine == null) return;
 
-        // Update UI even if paused, but only advance time when not paused
-        updateReinforcementStatus();
+        // Nothing to do in this battle - stop being called at all
+        if (!initialized || !isRetreatBattle) {
+            detach("not a retreat battle");
+            return;
+        }
+        if (engine.isPaused()) return;
 
-        if (delayedShips.isEmpty()) return;
+        long advanceStart = System.nanoTime();
 
-        elapsedTime += amount;
+        // Battle time keeps counting with an empty schedule while late arrivals are possible
+        if (seenReserves != null || !delayedShips.isEmpty()) {
+            elapsedTime += amount;
+        }
+
+        // Releases never wait for the budget and aren't charged to it - only the optional
+        // work after them gives way when the frame is short of time
+        releaseDueWave();
+
+        FrameBudget budget = FrameBudget.COMBAT;
+        budget.beginFrame();
+        long start = budget.start();
+        if (seenReserves != null) {
+            watchReserves(amount, budget, start);
+        }
+        updateReinforcementStatus(amount, budget);
+        budget.end(start);
+        ADVANCE_NANOS.record(System.nanoTime() - advanceStart);
+
+        // Every delayed ship has been released - the rest of the fight is vanilla,
+        // unless more ships may still join the reserves
+        if (delayedShips.isEmpty() && seenReserves == null) {
+            detach("all reinforcements released");
+        }
+    }
+
+    /**
+     * Remove this plugin from the engine and drop per-battle state.
+     */
+    private void detach(String reason) {
+        if (log.isInfoEnabled()) {
+            log.info("TacticalRetreat: Detaching from combat (" + reason + ")");
+        }
+        engine.removePlugin(this);
+        engine = null;
+        delayedShips = null;
+        seenReserves = null;
+        delayTable = null;
+        DETACHED.increment();
+    }
+
+    /**
+     * Release the whole next wave once it's due, so the enemy AI re-plans its deployment once
+     * per wave rather than once per ship. With no wave window, release only what's due.
+     */
+    private void releaseDueWave() {
+        // Nothing due yet - the common case for most of the fight
+        if (delayedShips.isEmpty() || elapsedTime < delayedShips.nextReleaseTime()) return;
 
         CombatFleetManagerAPI enemyManager = engine.getFleetManager(FleetSide.ENEMY);
         if (enemyManager == null) return;
 
-        // Check each delayed ship - add back to reserves when delay expires
-        List<DelayedShip> toRemove = new ArrayList<DelayedShip>();
-        for (DelayedShip delayed : delayedShips) {
-            String memberId = delayed.member.getId();
-
-            // Skip if already released to reserves
-            if (deployedShips.containsKey(memberId)) continue;
-
-            // Check if delay has elapsed
-            if (elapsedTime >= delayed.delaySeconds) {
-                // Time to release this ship back to reserves
-                log.info("TacticalRetreat: [" + String.format("%.1f", elapsedTime) + "s] " +
-                         "Releasing " + delayed.member.getShipName() + " to reserves (delay elapsed)");
-
-                // Add back to reserves - the game's AI will deploy when ready
-                // This respects battle size limits, deployment points, etc.
-                enemyManager.addToReserves(delayed.member);
-                deployedShips.put(memberId, true);
-                toRemove.add(delayed);
+        float cutoff = delayedShips.getWaveWindow() > 0 ? delayedShips.nextWaveEnd() : Math.nextUp(elapsedTime);
+        FleetMemberAPI member;
+        while ((member = delayedShips.pollBefore(cutoff)) != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("TacticalRetreat: [" + String.format("%.1f", elapsedTime) + "s] " +
+                          "Releasing " + member.getShipName() + " to reserves (delay elapsed)");
             }
-        }
 
-        // Remove released ships from tracking
-        delayedShips.removeAll(toRemove);
+            // Add back to reserves - the game's AI will deploy when ready
+            // This respects battle size limits, deployment points, etc.
+            enemyManager.addToReserves(member);
+            releasedSinceReserveCheck++;
+        }
     }
 
     /**
@@ -250,71 +355,56 @@ public class TacticalRetreatPlugin implements EveryFrameCombatPlugin {
      *
      * Ships are grouped by arrival time (based on burn speed).
      * All ships at the same burn level arrive together as a "wave".
+     * Package-private for the benchmarks.
      */
-    private void updateReinforcementStatus() {
+    void updateReinforcementStatus(float amount, FrameBudget budget) {
         if (delayedShips.isEmpty()) return;
 
-        // Group ships by arrival time (with small tolerance for floating point)
-        // Find the next wave and count ships in it
-        float nextWaveTime = Float.MAX_VALUE;
-        int shipsInNextWave = 0;
-        int totalRemaining = 0;
-
-        // First pass: find the earliest arrival time
-        for (DelayedShip delayed : delayedShips) {
-            if (!deployedShips.containsKey(delayed.member.getId())) {
-                totalRemaining++;
-                float timeRemaining = delayed.delaySeconds - elapsedTime;
-                if (timeRemaining < nextWaveTime) {
-                    nextWaveTime = timeRemaining;
-                }
-            }
+        // Over budget recently - keep showing the last text for a little while
+        sinceStatusRefresh += amount;
+        if (statusData != null && budget.isDegraded() && sinceStatusRefresh < DEGRADED_STATUS_INTERVAL) {
+            engine.maintainStatusForPlayerShip(STATUS_KEY, statusIcon, STATUS_TITLE, statusData, true);
+            return;
         }
+        sinceStatusRefresh = 0f;
 
-        if (totalRemaining == 0) return;
+        // Ships are sorted by arrival time, so the next wave is the head of the schedule
+        // plus anything arriving within the wave window of it
+        float nextWaveTime = delayedShips.nextReleaseTime() - elapsedTime;
+        int shipsInNextWave = delayedShips.nextWaveSize();
+        int totalRemaining = delayedShips.remaining();
 
-        // Second pass: count ships arriving at that time (within 1s tolerance)
-        for (DelayedShip delayed : delayedShips) {
-            if (!deployedShips.containsKey(delayed.member.getId())) {
-                float timeRemaining = delayed.delaySeconds - elapsedTime;
-                if (Math.abs(timeRemaining - nextWaveTime) < 1.0f) {
-                    shipsInNextWave++;
-                }
-            }
+        // 0 means the wave is becoming available now
+        int seconds = (int) Math.ceil(Math.max(0, nextWaveTime));
+
+        if (statusData == null || seconds != shownSeconds ||
+                shipsInNextWave != shownWaveSize || totalRemaining != shownTotal) {
+            statusData = formatStatus(seconds, shipsInNextWave, totalRemaining);
+            shownSeconds = seconds;
+            shownWaveSize = shipsInNextWave;
+            shownTotal = totalRemaining;
         }
 
-        // Format the status message
-        String icon = Global.getSettings().getSpriteName("ui", "icon_tactical_cr_penalty");
-        String title = "Enemy Reinforcements";
-        String data;
+        // Show as a "negative" status (red-ish) since it's enemy reinforcements
+        engine.maintainStatusForPlayerShip(STATUS_KEY, statusIcon, STATUS_TITLE, statusData, true);
+    }
 
-        int seconds = (int) Math.ceil(Math.max(0, nextWaveTime));
+    /**
+     * Build the status text for the next wave.
+     */
+    private static String formatStatus(int seconds, int shipsInNextWave, int totalRemaining) {
+        String ships = shipsInNextWave == 1 ? "1 ship" : shipsInNextWave + " ships";
 
-        if (nextWaveTime <= 0) {
+        if (seconds == 0) {
             // Wave becoming available now
-            if (shipsInNextWave == 1) {
-                data = "1 ship now available";
-            } else {
-                data = shipsInNextWave + " ships now available";
-            }
+            return ships + " now available";
         } else if (shipsInNextWave == totalRemaining) {
             // All remaining ships arrive together
-            if (shipsInNextWave == 1) {
-                data = "1 ship in " + seconds + "s";
-            } else {
-                data = shipsInNextWave + " ships in " + seconds + "s";
-            }
+            return ships + " in " + seconds + "s";
         } else {
             // Multiple waves remaining
-            if (shipsInNextWave == 1) {
-                data = "1 ship in " + seconds + "s (" + totalRemaining + " total)";
-            } else {
-                data = shipsInNextWave + " ships in " + seconds + "s (" + totalRemaining + " total)";
-            }
+            return ships + " in " + seconds + "s (" + totalRemaining + " total)";
         }
-
-        // Show as a "negative" status (red-ish) since it's enemy reinforcements
-        engine.maintainStatusForPlayerShip(STATUS_KEY, icon, title, data, true);
     }
 
     @Override
@@ -0,0 +1,178 @@
+package harshsector.features.stealthmarket;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.RepLevel;
+import com.fs.starfarer.api.campaign.SectorEntityToken;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Factions;
+import com.fs.starfarer.api.impl.campaign.ids.Industries;
+import com.fs.starfarer.api.impl.campaign.ids.MemFlags;
+import com.fs.starfarer.api.util.Misc;
+import harshsector.core.PlayerStateTracker;
+
+/**
+ * One condition for black market access, evaluated by BlackMarketPolicy.
+ *
+ * Each rule declares which inputs its result depends on, so the policy only throws away
+ * cached decisions when one of those inputs changes. Rules are listed in {@link #ALL} in
+ * evaluation order, cheapest first - evaluation stops at the first rule that denies access.
+ */
+abstract class AccessRule {
+
+    // Inputs a rule's result can depend on (bit mask)
+    static final int TRANSPONDER = 1;
+    static final int REPUTATION = 2;
+    static final int DAY = 4;
+
+    // Every rule, in evaluation order
+    static final AccessRule[] ALL = {
+        new TransponderRule(),
+        new ReputationRule(),
+        new MilitaryPresenceRule(),
+        new PatrolRule(),
+    };
+
+    private final String id;
+    private final int inputs;
+
+    AccessRule(String id, int inputs) {
+        this.id = id;
+        this.inputs = inputs;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    int getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Whether this rule is switched on in settings.
+     */
+    abstract boolean isEnabled();
+
+    /**
+     * Tooltip line explaining why the market is closed, or null if this rule allows access.
+     */
+    abstract String deny(MarketAPI market);
+
+    /**
+     * Tooltip line shown when the market is open, or null for none.
+     */
+    String allowed() {
+        return null;
+    }
+
+    /**
+     * Transponder must be off - the original Stealth Market rule.
+     */
+    static final class TransponderRule extends AccessRule {
+        TransponderRule() {
+            super("transponder", TRANSPONDER);
+        }
+
+        @Override
+        boolean isEnabled() {
+            return StealthMarketFeature.isTransponderCheckEnabled();
+        }
+
+        @Override
+        String deny(MarketAPI market) {
+            if (!PlayerStateTracker.isTransponderOn()) return null;
+            return "The black market is currently inaccessible. " +
+                   "You must turn your transponder OFF to conduct business here.";
+        }
+
+        @Override
+        String allowed() {
+            return "Your transponder is off. The black market is available.";
+        }
+    }
+
+    /**
+     * The pirates who run the black markets won't deal with someone they're hostile to.
+     */
+    static final class ReputationRule extends AccessRule {
+        ReputationRule() {
+            super("reputation", REPUTATION);
+        }
+
+        @Override
+        boolean isEnabled() {
+            return StealthMarketFeature.isReputationCheckEnabled();
+        }
+
+        @Override
+        String deny(MarketAPI market) {
+            FactionAPI pirates = Global.getSector().getFaction(Factions.PIRATES);
+            if (pirates == null) return null;
+            RepLevel level = pirates.getRelationshipLevel(Global.getSector().getPlayerFaction());
+            if (level == null || level.isAtWorst(RepLevel.INHOSPITABLE)) return null;
+            return "The dealers here won't trade with you. " +
+                   "Your standing with the pirates is " + level.getDisplayName().toLowerCase() + ".";
+        }
+    }
+
+    /**
+     * A military base or high command keeps the black market underground.
+     */
+    static final class MilitaryPresenceRule extends AccessRule {
+        MilitaryPresenceRule() {
+            super("military", DAY);
+        }
+
+        @Override
+        boolean isEnabled() {
+            return StealthMarketFeature.isMilitaryCheckEnabled();
+        }
+
+        @Override
+        String deny(MarketAPI market) {
+            if (!market.hasIndustry(Industries.MILITARYBASE) && !market.hasIndustry(Industries.HIGHCOMMAND)) {
+                return null;
+            }
+            return "The military presence at " + market.getName() + " keeps the black market underground. " +
+                   "Nobody here will admit it exists.";
+        }
+    }
+
+    /**
+     * Patrols of the market's faction near the market scare the dealers off.
+     * Checked at most once per day per market.
+     */
+    static final class PatrolRule extends AccessRule {
+        // How close a patrol has to be to the market's primary entity
+        private static final float PATROL_RANGE = 2000f;
+
+        PatrolRule() {
+            super("patrol", DAY);
+        }
+
+        @Override
+        boolean isEnabled() {
+            return StealthMarketFeature.isPatrolCheckEnabled();
+        }
+
+        @Override
+        String deny(MarketAPI market) {
+            SectorEntityToken entity = market.getPrimaryEntity();
+            LocationAPI location = entity != null ? entity.getContainingLocation() : null;
+            if (location == null || market.getFactionId() == null) return null;
+
+            for (CampaignFleetAPI fleet : location.getFleets()) {
+                if (fleet.getFaction() == null || !market.getFactionId().equals(fleet.getFaction().getId())) continue;
+                if (!fleet.getMemoryWithoutUpdate().getBoolean(MemFlags.MEMORY_KEY_PATROL_FLEET)) continue;
+                if (Misc.getDistance(fleet.getLocation(), entity.getLocation()) > PATROL_RANGE) continue;
+
+                return "Patrols are active near " + market.getName() + ". " +
+                       "The black market's dealers are lying low.";
+            }
+            return null;
+        }
+    }
+}
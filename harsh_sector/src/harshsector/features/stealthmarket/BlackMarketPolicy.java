@@ -0,0 +1,175 @@
+package harshsector.features.stealthmarket;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignClockAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+import harshsector.core.PlayerStateTracker;
+import harshsector.core.Settings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides whether a market's black market is open to the player, and why.
+ *
+ * The enabled AccessRules are compiled into an ordered array once per settings snapshot.
+ * Each market's decision - open or closed, plus the tooltip lines explaining it - is cached
+ * by market ID, so the trade UI's repeated isEnabled/createTooltip calls are a map lookup.
+ *
+ * Cached decisions are dropped only when an input one of the enabled rules depends on
+ * changes: the transponder (PlayerStateTracker's transition count), the player's
+ * reputation (counted by a transient listener) or the campaign day.
+ */
+class BlackMarketPolicy {
+
+    private static final FeatureLog log = StealthMarketFeature.getLog(BlackMarketPolicy.class);
+
+    private static final Metrics.Counter EVALUATIONS = Metrics.counter("stealthmarket.policy.evaluations");
+    private static final Metrics.Counter INVALIDATIONS = Metrics.counter("stealthmarket.policy.invalidations");
+
+    // Decision used when no rules are enabled
+    private static final Decision OPEN = new Decision(true, new String[0]);
+
+    private static final Map<String, Decision> decisions = new HashMap<String, Decision>();
+
+    // Enabled rules, compiled for this settings snapshot
+    private static Settings.Snapshot compiledFor;
+    private static AccessRule[] rules = new AccessRule[0];
+    private static int inputs = 0;
+
+    // Input versions the cached decisions were made with
+    private static int transponderVersion = -1;
+    private static int reputationVersion = -1;
+    private static int dayVersion = -1;
+
+    // Incremented by REPUTATION_COUNTER
+    private static int reputationChanges = 0;
+
+    /**
+     * The outcome of evaluating the rules for one market.
+     */
+    static final class Decision {
+        final boolean allowed;
+        final String[] lines;
+
+        Decision(boolean allowed, String[] lines) {
+            this.allowed = allowed;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Reset cached decisions and start counting reputation changes for the loaded game.
+     */
+    static void register() {
+        decisions.clear();
+        compiledFor = null;
+        reputationChanges = 0;
+        transponderVersion = -1;
+        reputationVersion = -1;
+        dayVersion = -1;
+        EventDispatcher.REPUTATION_CHANGED.subscribe(REPUTATION_COUNTER);
+    }
+
+    /**
+     * The cached decision for a market, evaluating the rules only if an input has changed.
+     */
+    static Decision decide(MarketAPI market) {
+        compileIfStale();
+        // Every rule is disabled - open, with no tooltip lines
+        if (rules.length == 0) return OPEN;
+
+        invalidateIfStale();
+        Decision decision = decisions.get(market.getId());
+        if (decision == null) {
+            decision = evaluate(market);
+            decisions.put(market.getId(), decision);
+        }
+        return decision;
+    }
+
+    private static void compileIfStale() {
+        Settings.Snapshot current = Settings.snapshot();
+        if (current == compiledFor) return;
+
+        List<AccessRule> enabled = new ArrayList<AccessRule>();
+        int mask = 0;
+        for (AccessRule rule : AccessRule.ALL) {
+            if (rule.isEnabled()) {
+                enabled.add(rule);
+                mask |= rule.getInputs();
+            }
+        }
+        rules = enabled.toArray(new AccessRule[enabled.size()]);
+        inputs = mask;
+        compiledFor = current;
+        decisions.clear();
+
+        if (log.isInfoEnabled()) {
+            StringBuilder ids = new StringBuilder();
+            for (AccessRule rule : rules) {
+                if (ids.length() > 0) ids.append(", ");
+                ids.append(rule.getId());
+            }
+            log.info("BlackMarketPolicy: Compiled rules [" + ids + "]");
+        }
+    }
+
+    private static void invalidateIfStale() {
+        int transponder = (inputs & AccessRule.TRANSPONDER) != 0 ? PlayerStateTracker.getTransponderTransitions() : 0;
+        int reputation = (inputs & AccessRule.REPUTATION) != 0 ? reputationChanges : 0;
+        int day = (inputs & AccessRule.DAY) != 0 ? currentDay() : 0;
+
+        if (transponder != transponderVersion || reputation != reputationVersion || day != dayVersion) {
+            if (!decisions.isEmpty()) {
+                decisions.clear();
+                INVALIDATIONS.increment();
+            }
+            transponderVersion = transponder;
+            reputationVersion = reputation;
+            dayVersion = day;
+        }
+    }
+
+    private static int currentDay() {
+        CampaignClockAPI clock = Global.getSector().getClock();
+        if (clock == null) return 0;
+        return (clock.getCycle() * 12 + clock.getMonth()) * 31 + clock.getDay();
+    }
+
+    private static Decision evaluate(MarketAPI market) {
+        EVALUATIONS.increment();
+
+        for (AccessRule rule : rules) {
+            String denial = rule.deny(market);
+            if (denial != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("BlackMarketPolicy: " + market.getName() + " closed by " + rule.getId() + " rule");
+                }
+                return new Decision(false, new String[] { denial });
+            }
+        }
+
+        List<String> lines = new ArrayList<String>();
+        for (AccessRule rule : rules) {
+            String line = rule.allowed();
+            if (line != null) lines.add(line);
+        }
+        return new Decision(true, lines.toArray(new String[lines.size()]));
+    }
+
+    /**
+     * Counts player reputation changes, so reputation rules re-evaluate after one.
+     */
+    private static final EventDispatcher.ReputationChanged REPUTATION_COUNTER = new EventDispatcher.ReputationChanged() {
+        @Override
+        public void onReputationChanged(String factionId, float delta) {
+            reputationChanges++;
+        }
+    };
+}
@@ -0,0 +1,72 @@
+package harshsector.features.stealthmarket;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import harshsector.core.FeatureLog;
+import harshsector.core.FrameBudget;
+
+import java.util.List;
+
+/**
+ * Swaps the black markets of every market in the economy in the background.
+ *
+ * Without this, the first visit to each market pays for removing the vanilla black
+ * market, adding ours and copying its cargo while the player waits on the trade screen.
+ * This script takes a snapshot of the economy's markets on load and swaps a few of them
+ * per campaign frame until it runs out, then removes itself. It stops early in a frame
+ * when the shared FrameBudget runs out.
+ *
+ * Markets created later are still swapped by SubmarketSwapper when first opened.
+ */
+public class BlackMarketPreSwapper implements EveryFrameScript {
+
+    private static final FeatureLog log = StealthMarketFeature.getLog(BlackMarketPreSwapper.class);
+
+    // Markets swapped per campaign frame - keeps each frame's share of the work small
+    private static final int MARKETS_PER_FRAME = 4;
+
+    private List<MarketAPI> markets;
+    private int next = 0;
+    private boolean done = false;
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean runWhilePaused() {
+        return false;
+    }
+
+    @Override
+    public void advance(float amount) {
+        if (done) return;
+
+        if (markets == null) {
+            markets = Global.getSector().getEconomy().getMarketsCopy();
+            if (log.isInfoEnabled()) {
+                log.info("BlackMarketPreSwapper: Swapping black markets at " + markets.size() + " markets");
+            }
+        }
+
+        FrameBudget budget = FrameBudget.CAMPAIGN;
+        long start = budget.start();
+        int end = Math.min(next + MARKETS_PER_FRAME, markets.size());
+        while (next < end) {
+            SubmarketSwapper.swapBlackMarket(markets.get(next++));
+            if (next < end && !budget.hasTime(start)) {
+                budget.defer();
+                break;
+            }
+        }
+        budget.end(start);
+
+        if (next >= markets.size()) {
+            log.info("BlackMarketPreSwapper: Finished");
+            markets = null;
+            done = true;
+        }
+    }
+}
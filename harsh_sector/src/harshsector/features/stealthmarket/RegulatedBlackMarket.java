@@ -1,24 +1,28 @@
 package harshsector.features.stealthmarket;
 
-import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.campaign.CoreUIAPI;
 import com.fs.starfarer.api.impl.campaign.submarkets.BlackMarketPlugin;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
+import harshsector.core.Metrics;
 
 import java.awt.Color;
 
 /**
- * A black market that requires transponder OFF to access.
+ * A black market that is only open when BlackMarketPolicy allows it.
  *
  * This extends the vanilla BlackMarketPlugin and overrides two methods:
- * - isEnabled() - returns false when transponder is ON (disables the tab)
- * - createTooltip() - adds explanation text when disabled
+ * - isEnabled() - returns false when any enabled access rule denies access (disables the tab)
+ * - createTooltip() - adds the policy's explanation of why the market is open or closed
  *
+ * The policy caches each market's decision, so both methods are a map lookup per call.
  * Everything else (buying, selling, tariffs, etc.) works exactly like vanilla.
  */
 public class RegulatedBlackMarket extends BlackMarketPlugin {
 
+    // Compare with stealthmarket.markets_opened for calls per market screen
+    private static final Metrics.Counter IS_ENABLED_CALLS = Metrics.counter("stealthmarket.is_enabled_calls");
+
     /**
      * Check if the black market should be accessible.
      * This is THE key method - returning false grays out the submarket tab.
@@ -28,57 +32,26 @@ public class RegulatedBlackMarket extends BlackMarketPlugin {
      */
     @Override
     public boolean isEnabled(CoreUIAPI ui) {
-        // If the feature is disabled via settings, always allow access
-        if (!StealthMarketFeature.isTransponderCheckEnabled()) {
-            return true;
-        }
-        // If transponder is ON, black market is disabled
-        // If transponder is OFF, black market is enabled
-        return !isTransponderOn();
-    }
-
-    /**
-     * Check the player's transponder state.
-     * This is the one API call that makes this whole feature work.
-     */
-    private boolean isTransponderOn() {
-        return Global.getSector().getPlayerFleet().isTransponderOn();
+        IS_ENABLED_CALLS.increment();
+        return BlackMarketPolicy.decide(market).allowed;
     }
 
     /**
      * Create the tooltip shown when hovering over the submarket tab.
-     * We add our own message explaining why it might be disabled.
+     * We add the policy's explanation of why it's open or closed.
      */
     @Override
     public void createTooltip(CoreUIAPI ui, TooltipMakerAPI tooltip, boolean expanded) {
         // First, let the vanilla tooltip do its thing
         super.createTooltip(ui, tooltip, expanded);
 
-        // Skip custom tooltip if feature is disabled
-        if (!StealthMarketFeature.isTransponderCheckEnabled()) {
-            return;
-        }
+        // The rule that closed the market, or a line per enabled rule when it is open
+        BlackMarketPolicy.Decision decision = BlackMarketPolicy.decide(market);
 
-        // Add our warning message
         float pad = 10f;
-        Color highlightColor = Misc.getHighlightColor();
-        Color negativeColor = Misc.getNegativeHighlightColor();
-
-        if (isTransponderOn()) {
-            // Transponder is ON - explain why market is disabled
-            tooltip.addPara(
-                "The black market is currently inaccessible. " +
-                "You must turn your transponder OFF to conduct business here.",
-                negativeColor,
-                pad
-            );
-        } else {
-            // Transponder is OFF - market is accessible
-            tooltip.addPara(
-                "Your transponder is off. The black market is available.",
-                highlightColor,
-                pad
-            );
+        Color color = decision.allowed ? Misc.getHighlightColor() : Misc.getNegativeHighlightColor();
+        for (String line : decision.lines) {
+            tooltip.addPara(line, color, pad);
         }
     }
 
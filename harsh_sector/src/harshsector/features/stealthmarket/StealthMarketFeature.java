@@ -1,28 +1,41 @@
 package harshsector.features.stealthmarket;
 
 import com.fs.starfarer.api.Global;
+import harshsector.core.FeatureLog;
 import harshsector.core.Settings;
-import org.apache.log4j.Logger;
 
 /**
  * Stealth Market Feature
  *
  * Requires players to turn their transponder OFF to access black markets.
  * Broadcasting your identity while conducting illegal business is unwise.
+ * Optional rules also close black markets to players the pirates are hostile to,
+ * at markets with a military presence, and while patrols are nearby.
  *
  * Components:
- * - RegulatedBlackMarket: Black market plugin that checks transponder state
- * - SubmarketSwapper: Listener that swaps vanilla black markets with regulated version
+ * - RegulatedBlackMarket: Black market plugin that asks BlackMarketPolicy for access
+ * - BlackMarketPolicy: Evaluates the enabled AccessRules and caches each market's decision
+ * - AccessRule: The individual access conditions (transponder, reputation, military, patrols)
+ * - SubmarketSwapper: Swaps vanilla black markets with the regulated version when a market opens
+ * - BlackMarketPreSwapper: Background script that swaps existing markets a few per frame
  */
 public class StealthMarketFeature {
 
-    private static final Logger log = Global.getLogger(StealthMarketFeature.class);
+    // Settings (IDs must match LunaSettings.csv)
+    private static final Settings.BooleanKey TRANSPONDER_CHECK =
+        Settings.booleanKey("harshsector_transponder_check", true);
+    private static final Settings.BooleanKey REPUTATION_CHECK =
+        Settings.booleanKey("harshsector_blackmarket_reputation_check", false);
+    private static final Settings.BooleanKey MILITARY_CHECK =
+        Settings.booleanKey("harshsector_blackmarket_military_check", false);
+    private static final Settings.BooleanKey PATROL_CHECK =
+        Settings.booleanKey("harshsector_blackmarket_patrol_check", false);
+    private static final Settings.BooleanKey PRESWAP_ENABLED =
+        Settings.booleanKey("harshsector_blackmarket_preswap", true);
+    private static final Settings.IntKey LOG_LEVEL =
+        Settings.intKey("harshsector_log_stealthmarket", FeatureLog.WARN);
 
-    // Setting IDs (must match LunaSettings.csv)
-    private static final String TRANSPONDER_CHECK_ID = "harshsector_transponder_check";
-
-    // Default values
-    private static final boolean DEFAULT_TRANSPONDER_CHECK = true;
+    private static final FeatureLog log = getLog(StealthMarketFeature.class);
 
     /**
      * Register the stealth market feature with the game.
@@ -31,6 +44,26 @@ public class StealthMarketFeature {
     public static void register() {
         log.info("Harsh Sector: Registering Stealth Market feature");
         SubmarketSwapper.register();
+        BlackMarketPolicy.register();
+
+        if (PRESWAP_ENABLED.get()) {
+            Global.getSector().addTransientScript(new BlackMarketPreSwapper());
+        }
+    }
+
+    /**
+     * Create a logger for a class in this feature, using the feature's log level setting.
+     */
+    static FeatureLog getLog(Class<?> owner) {
+        return FeatureLog.get(owner, LOG_LEVEL);
+    }
+
+    /**
+     * Check if any black market rule is enabled - the feature does nothing otherwise.
+     */
+    public static boolean isEnabled() {
+        return isTransponderCheckEnabled() || isReputationCheckEnabled()
+            || isMilitaryCheckEnabled() || isPatrolCheckEnabled();
     }
 
     /**
@@ -40,6 +73,34 @@ public class StealthMarketFeature {
      * When disabled: black markets work like vanilla (always accessible)
      */
     public static boolean isTransponderCheckEnabled() {
-        return Settings.getBoolean(TRANSPONDER_CHECK_ID, DEFAULT_TRANSPONDER_CHECK);
+        return TRANSPONDER_CHECK.get();
+    }
+
+    /**
+     * Check if the pirate reputation rule is enabled.
+     *
+     * When enabled: black markets are closed while the pirates are hostile or vengeful toward the player
+     */
+    public static boolean isReputationCheckEnabled() {
+        return REPUTATION_CHECK.get();
+    }
+
+    /**
+     * Check if the military presence rule is enabled.
+     *
+     * When enabled: black markets are closed at markets with a military base or high command
+     */
+    public static boolean isMilitaryCheckEnabled() {
+        return MILITARY_CHECK.get();
+    }
+
+    /**
+     * Check if the patrol proximity rule is enabled.
+     *
+     * When enabled: black markets are closed while a patrol of the market's faction is nearby
+     * (checked once per day)
+     */
+    public static boolean isPatrolCheckEnabled() {
+        return PATROL_CHECK.get();
     }
 }
@@ -1,46 +1,58 @@
 package harshsector.features.stealthmarket;
 
-import com.fs.starfarer.api.Global;
-import com.fs.starfarer.api.campaign.PlayerMarketTransaction;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.campaign.econ.SubmarketAPI;
-import com.fs.starfarer.api.campaign.listeners.ColonyInteractionListener;
 import com.fs.starfarer.api.impl.campaign.ids.Submarkets;
-import org.apache.log4j.Logger;
+import harshsector.core.EventDispatcher;
+import harshsector.core.FeatureLog;
+import harshsector.core.Metrics;
+import harshsector.core.PlayerStateTracker;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * Listens for when the player opens a market.
+ * Subscribes to the player opening a market.
  * When they do, we swap the vanilla black market plugin with our regulated version.
  *
- * Why a listener? Because markets are loaded/created dynamically. We can't just
+ * Why an event? Because markets are loaded/created dynamically. We can't just
  * replace them once at game start - we need to swap them each time the player
- * interacts with a market.
+ * interacts with a market. When pre-swapping is enabled, BlackMarketPreSwapper
+ * migrates existing markets in the background and this listener only catches
+ * markets created afterwards.
  */
-public class SubmarketSwapper implements ColonyInteractionListener {
+public class SubmarketSwapper implements EventDispatcher.MarketOpened, EventDispatcher.MarketCargoUpdated {
 
-    private static final Logger log = Global.getLogger(SubmarketSwapper.class);
+    private static final FeatureLog log = StealthMarketFeature.getLog(SubmarketSwapper.class);
 
     // ID for our regulated black market (defined in submarkets.csv)
     public static final String REGULATED_BLACK_MARKET = "harsh_sector_black_market";
 
+    // Markets whose black market is already our regulated version (reset on each load)
+    private static final Set<String> swappedMarketIds = new HashSet<String>();
+
+    private static final Metrics.Counter MARKETS_OPENED = Metrics.counter("stealthmarket.markets_opened");
+    private static final Metrics.Counter SWAPS = Metrics.counter("stealthmarket.swaps");
+
     /**
-     * Register this listener with the game.
+     * Subscribe to market events for this game.
      * Called from StealthMarketFeature.register()
      */
     public static void register() {
-        // Check if we're already registered (prevents duplicates on save/load)
-        for (Object listener : Global.getSector().getListenerManager().getListeners(ColonyInteractionListener.class)) {
-            if (listener instanceof SubmarketSwapper) {
-                log.info("SubmarketSwapper already registered, skipping");
-                return;
-            }
-        }
+        swappedMarketIds.clear();
 
         SubmarketSwapper swapper = new SubmarketSwapper();
-        // The 'true' parameter means this listener is transient (not saved)
-        // We re-register it on each game load anyway
-        Global.getSector().getListenerManager().addListener(swapper, true);
-        log.info("SubmarketSwapper registered");
+        EventDispatcher.MARKET_OPENED.subscribe(swapper);
+        EventDispatcher.MARKET_CARGO_UPDATED.subscribe(swapper);
+        log.info("SubmarketSwapper subscribed");
+    }
+
+    @Override
+    public void onMarketOpened(MarketAPI market) {
+        // This event comes first, before cargo update
+        MARKETS_OPENED.increment();
+        // Make sure the black market tab sees the transponder state as of docking
+        PlayerStateTracker.sample();
     }
 
     /**
@@ -48,31 +60,20 @@ public class SubmarketSwapper implements ColonyInteractionListener {
      * This is our chance to swap the black market plugin.
      */
     @Override
-    public void reportPlayerOpenedMarket(MarketAPI market) {
-        // This method is called first, before cargo update
-    }
-
-    @Override
-    public void reportPlayerClosedMarket(MarketAPI market) {
-        // Called when player leaves the market
-    }
-
-    @Override
-    public void reportPlayerMarketTransaction(PlayerMarketTransaction transaction) {
-        // Called when player completes a transaction (buy/sell)
-        // Not needed for our feature, but required by the interface
-    }
-
-    @Override
-    public void reportPlayerOpenedMarketAndCargoUpdated(MarketAPI market) {
+    public void onMarketCargoUpdated(MarketAPI market) {
         // This is the main hook - market is fully ready
         swapBlackMarket(market);
     }
 
     /**
      * Replace the vanilla black market plugin with our regulated version.
+     * Markets already handled this session are skipped with a single set lookup.
      */
-    private void swapBlackMarket(MarketAPI market) {
+    static void swapBlackMarket(MarketAPI market) {
+        if (swappedMarketIds.contains(market.getId())) {
+            return;
+        }
+
         // Check if this market has a black market
         SubmarketAPI blackMarket = market.getSubmarket(Submarkets.SUBMARKET_BLACK);
         if (blackMarket == null) {
@@ -81,10 +82,13 @@ public class SubmarketSwapper implements ColonyInteractionListener {
 
         // Check if it's already our regulated version
         if (blackMarket.getPlugin() instanceof RegulatedBlackMarket) {
+            swappedMarketIds.add(market.getId());
             return; // Already swapped
         }
 
-        log.info("Swapping black market at: " + market.getName());
+        if (log.isInfoEnabled() && log.allow("swap")) {
+            log.info("Swapping black market at: " + market.getName());
+        }
 
         // Store the existing cargo/inventory so we don't lose it
         // Note: The submarket spec in submarkets.csv will create our plugin
@@ -100,5 +104,7 @@ public class SubmarketSwapper implements ColonyInteractionListener {
         if (newBlackMarket != null && blackMarket.getCargo() != null) {
             newBlackMarket.getCargo().addAll(blackMarket.getCargo());
         }
+        SWAPS.increment();
+        swappedMarketIds.add(market.getId());
     }
 }